@@ -1,9 +1,12 @@
 package com.xmartin.authservice.client;
 
 import com.xmartin.authservice.model.UserModel;
+import com.xmartin.authservice.model.UserRevocationModel;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @FeignClient(name = "user-service")
@@ -20,4 +23,7 @@ public interface UserClient {
 
     @GetMapping("/users/exist/{email}")
     public boolean getUserExistsByEmail(@PathVariable String email);
+
+    @GetMapping("/users/revocations")
+    public List<UserRevocationModel> getRevocations(@RequestParam Instant since);
 }
@@ -0,0 +1,139 @@
+package com.xmartin.authservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import com.xmartin.authservice.model.UserRevocationModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/*
+Cache local delante de UserClient para saber si el usuario de un token sigue existiendo, usando el endpoint
+ligero /users/exist en lugar de traer el usuario completo. Los usuarios que existen se guardan ttl y los que no
+solo negativeTtl.
+Cuando user-service borra un usuario guarda la revocacion en su bbdd y avisa a una sola instancia de auth-service
+(revoke). El resto la ve al consultar cada pocos segundos GET /users/revocations (pollRevocations). En ambos casos se
+descarta la entrada del usuario y se apunta en una lista de revocados el instante del borrado, truncado a segundos
+como el iat de los tokens. Los tokens emitidos antes de ese segundo se rechazan aunque despues se vuelva a registrar el
+mismo email. Los del mismo segundo se aceptan: con la precision del iat no se distingue un token viejo de uno del
+usuario que se acaba de volver a registrar, y rechazarlos dejaria inservible el token nuevo durante toda su vida.
+La lista solo necesita guardar cada entrada lo que dura un token.
+ */
+@Component
+@Slf4j
+public class UserExistenceCache {
+
+    private final UserClient userClient;
+    private final LoadingCache<String, Boolean> usersByEmail;
+    private final Cache<String, Instant> revokedUsers;
+    //se vuelve a pedir este margen para no perder borrados confirmados mientras se hacia la consulta anterior
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+    private Instant revocationsSince;
+
+    public UserExistenceCache(UserClient userClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${user-cache.maximum-size:100000}") long maximumSize,
+                              @Value("${user-cache.ttl:5m}") Duration ttl,
+                              @Value("${user-cache.negative-ttl:30s}") Duration negativeTtl,
+                              @Value("${jwt.expirationms}") long tokenLifetimeMs) {
+        this.userClient = userClient;
+
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExistenceExpiry(ttl, negativeTtl))
+                .recordStats()
+                .build(userClient::getUserExistsByEmail);
+
+        this.revokedUsers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(tokenLifetimeMs))
+                .recordStats()
+                .build();
+
+        //al arrancar se leen los borrados cuyos tokens aun pueden estar vigentes
+        this.revocationsSince = Instant.now().minusMillis(tokenLifetimeMs);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "usersByEmail");
+        CaffeineCacheMetrics.monitor(meterRegistry, revokedUsers, "revokedUsers");
+    }
+
+    //el usuario sigue existiendo y el token no es anterior al segundo de un borrado del usuario
+    public boolean isActive(String email, Instant issuedAt) {
+        Instant revokedAt = revokedUsers.getIfPresent(email);
+        if (revokedAt != null && (issuedAt == null || issuedAt.isBefore(revokedAt))) {
+            return false;
+        }
+        return usersByEmail.get(email);
+    }
+
+    /*
+    Se vuelve a preguntar a user-service en lugar de fiarse del aviso, asi que llamar a revoke para un usuario que
+    existe solo refresca su entrada.
+     */
+    public void revoke(String email) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        usersByEmail.invalidate(email);
+        if (!usersByEmail.get(email)) {
+            applyRevocation(email, now);
+            log.debug("Revoked tokens of deleted user {}", email);
+        }
+    }
+
+    /*
+    Si user-service no responde se reintenta en la siguiente pasada desde el mismo instante, asi que no se pierde
+    ningun borrado mientras siga dentro de su retencion.
+     */
+    @Scheduled(fixedDelayString = "${user-cache.revocation-poll-interval-ms:5000}")
+    public void pollRevocations() {
+        Instant pollStart = Instant.now();
+        List<UserRevocationModel> revocations;
+        try {
+            revocations = userClient.getRevocations(revocationsSince);
+        } catch (Exception e) {
+            log.warn("Could not read user revocations since {}: {}", revocationsSince, e.getMessage());
+            return;
+        }
+        revocations.forEach(revocation -> applyRevocation(revocation.getEmail(), revocation.getRevokedAt()));
+        revocationsSince = pollStart.minus(POLL_OVERLAP);
+    }
+
+    // Métodos auxiliares privados
+
+    //se queda con el borrado mas reciente del email
+    private void applyRevocation(String email, Instant revokedAt) {
+        Instant truncated = revokedAt.truncatedTo(ChronoUnit.SECONDS);
+        Instant previous = revokedUsers.getIfPresent(email);
+        if (previous == null || truncated.isAfter(previous)) {
+            revokedUsers.put(email, truncated);
+            usersByEmail.invalidate(email);
+        }
+    }
+
+    private record ExistenceExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Boolean> {
+
+        @Override
+        public long expireAfterCreate(String key, Boolean exists, long currentTime) {
+            return (exists ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Boolean exists, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, exists, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Boolean exists, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
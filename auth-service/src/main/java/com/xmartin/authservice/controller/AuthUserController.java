@@ -4,17 +4,24 @@ import com.xmartin.authservice.controller.dto.LoginDto;
 import com.xmartin.authservice.controller.dto.RegisterDto;
 import com.xmartin.authservice.controller.dto.RequestDto;
 import com.xmartin.authservice.controller.dto.TokenDto;
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
 import com.xmartin.authservice.model.UserModel;
+import com.xmartin.authservice.security.JwtKeyProvider;
 import com.xmartin.authservice.service.AuthUserService;
 import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.ConnectException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/auth")
@@ -23,17 +30,22 @@ import java.net.ConnectException;
 public class AuthUserController {
 
     private final AuthUserService authUserService;
+    private final JwtKeyProvider jwtKeyProvider;
 
     @CircuitBreaker(name = "user-service", fallbackMethod = "fallbackLogin")
     @Operation(summary = "Log in", description = "Log in a user in the application")
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginDto loginDto) {
+    public ResponseEntity<?> login(@RequestBody LoginDto loginDto, HttpServletRequest request) {
 
-        TokenDto tokenDto = authUserService.login(loginDto);
-        if (tokenDto == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        } else {
-            return ResponseEntity.ok(tokenDto);
+        try {
+            TokenDto tokenDto = authUserService.login(loginDto, request.getRemoteAddr());
+            if (tokenDto == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            } else {
+                return ResponseEntity.ok(tokenDto);
+            }
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         }
 
     }
@@ -49,19 +61,43 @@ public class AuthUserController {
         }
     }
 
+    /*
+    Lo llama user-service al borrar un usuario. Se comprueba contra user-service que el usuario ya no exista, asi
+    que llamarlo para un usuario existente no invalida sus tokens.
+     */
+    @CircuitBreaker(name = "user-service", fallbackMethod = "fallbackRevoke")
+    @Operation(summary = "Revoke user", description = "Drop the cached state of a deleted user and reject its previous tokens")
+    @PostMapping("/revocations/{email}")
+    public ResponseEntity<?> revokeUser(@PathVariable String email) {
+        authUserService.revokeUser(email);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Get signing keys", description = "Public keys (JWKS) to verify the issued tokens")
+    @GetMapping("/jwks")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                .body(jwtKeyProvider.getJwkSet());
+    }
+
     @CircuitBreaker(name = "user-service", fallbackMethod = "fallbackSave")
     @Operation(summary = "Sign up", description = "Sign up a user in the application")
     @PostMapping("/create")
     public ResponseEntity<?> save(@RequestBody RegisterDto registerDto) {
-        UserModel userModel = authUserService.save(registerDto);
-        if (userModel == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        } else {
-            return ResponseEntity.ok(userModel);
+        try {
+            UserModel userModel = authUserService.save(registerDto);
+            if (userModel == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            } else {
+                return ResponseEntity.ok(userModel);
+            }
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         }
     }
 
-    public ResponseEntity<?> fallbackLogin(@RequestBody LoginDto loginDto, Exception e) {
+    public ResponseEntity<?> fallbackLogin(@RequestBody LoginDto loginDto, HttpServletRequest request, Exception e) {
         return failConnectionHandler(e);
     }
 
@@ -69,10 +105,20 @@ public class AuthUserController {
         return failConnectionHandler(e);
     }
 
+    public ResponseEntity<?> fallbackRevoke(@PathVariable String email, Exception e) {
+        return failConnectionHandler(e);
+    }
+
     public ResponseEntity<?> fallbackSave(@RequestBody RegisterDto registerDto, Exception e) {
         return failConnectionHandler(e);
     }
 
+    private static ResponseEntity<String> tooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
     private static ResponseEntity<String> failConnectionHandler(Exception e) {
         if (e instanceof FeignException.ServiceUnavailable || e instanceof ConnectException) {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Service not available, try again later.");
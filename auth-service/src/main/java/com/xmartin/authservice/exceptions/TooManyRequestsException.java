@@ -0,0 +1,14 @@
+package com.xmartin.authservice.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class TooManyRequestsException extends Exception {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package com.xmartin.authservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class UserRevocationModel {
+    private String email;
+    private Instant revokedAt;
+}
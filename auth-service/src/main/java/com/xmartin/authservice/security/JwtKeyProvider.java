@@ -0,0 +1,86 @@
+package com.xmartin.authservice.security;
+
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.RsaPublicJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Par de claves RSA con el que se firman los tokens (RS256). La clave publica se publica como JWKS en /auth/jwks
+para que el gateway pueda verificar los tokens sin llamar a auth-service. El kid es el thumbprint de la clave
+publica, asi que cambia solo si cambia la clave.
+Las claves se leen en PEM o base64 (PKCS#8 la privada, X.509 la publica). Si no se configuran el servicio no
+arranca, salvo con el perfil dev, donde se genera un par al arrancar (valido solo con una unica instancia).
+ */
+@Component
+@Slf4j
+public class JwtKeyProvider {
+
+    private static final String DEV_PROFILE = "dev";
+
+    private final RSAPrivateKey privateKey;
+    private final RSAPublicKey publicKey;
+    private final RsaPublicJwk publicJwk;
+
+    public JwtKeyProvider(@Value("${jwt.private-key:}") String privateKey,
+                          @Value("${jwt.public-key:}") String publicKey,
+                          Environment environment) throws GeneralSecurityException {
+        if (privateKey.isBlank() || publicKey.isBlank()) {
+            if (!environment.acceptsProfiles(Profiles.of(DEV_PROFILE))) {
+                throw new IllegalStateException("jwt.private-key and jwt.public-key are required outside the "
+                        + DEV_PROFILE + " profile");
+            }
+            log.warn("jwt.private-key / jwt.public-key not configured, generating an ephemeral RSA key pair");
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair keyPair = generator.generateKeyPair();
+            this.privateKey = (RSAPrivateKey) keyPair.getPrivate();
+            this.publicKey = (RSAPublicKey) keyPair.getPublic();
+        } else {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            this.privateKey = (RSAPrivateKey) keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decode(privateKey)));
+            this.publicKey = (RSAPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(decode(publicKey)));
+        }
+        this.publicJwk = Jwks.builder().key(this.publicKey).idFromThumbprint().build();
+    }
+
+    public RSAPrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    public RSAPublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    public String getKeyId() {
+        return publicJwk.getId();
+    }
+
+    public Map<String, Object> getJwkSet() {
+        Map<String, Object> jwk = new LinkedHashMap<>(publicJwk);
+        jwk.put("use", "sig");
+        jwk.put("alg", "RS256");
+        return Map.of("keys", List.of(jwk));
+    }
+
+    private static byte[] decode(String key) {
+        String base64 = key.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
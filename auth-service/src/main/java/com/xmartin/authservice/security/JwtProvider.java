@@ -3,93 +3,76 @@ package com.xmartin.authservice.security;
 import com.xmartin.authservice.controller.dto.RequestDto;
 import com.xmartin.authservice.model.UserModel;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
+/*
+El parser se construye una sola vez con la clave publica y es inmutable, asi que se comparte entre hilos. Cada
+token se parsea y verifica una unica vez: la caducidad la comprueba el propio parser y el rol y el email se
+leen de los claims ya verificados.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtProvider {
 
-    @Value("${jwt.secret}")
-    private String secret;
-    @Value("${jwt.expirationms}")
-    private Long expirationms;
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
 
     private final RouteValidator routeValidator;
+    private final JwtKeyProvider jwtKeyProvider;
+    private final Long expirationms;
+    private final JwtParser parser;
+
+    public JwtProvider(RouteValidator routeValidator,
+                       JwtKeyProvider jwtKeyProvider,
+                       @Value("${jwt.expirationms}") Long expirationms) {
+        this.routeValidator = routeValidator;
+        this.jwtKeyProvider = jwtKeyProvider;
+        this.expirationms = expirationms;
+        this.parser = Jwts.parser()
+                .verifyWith(jwtKeyProvider.getPublicKey())
+                .build();
+    }
 
     public String createToken(UserModel userModel) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("id", userModel.getId());
         claims.put("role", userModel.getRole());
+        long now = System.currentTimeMillis();
 
         return Jwts
                 .builder()
-                .setClaims(claims)
-                .setSubject(userModel.getEmail())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expirationms))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .header().keyId(jwtKeyProvider.getKeyId()).and()
+                .claims(claims)
+                .subject(userModel.getEmail())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expirationms))
+                .signWith(jwtKeyProvider.getPrivateKey(), Jwts.SIG.RS256)
                 .compact();
     }
 
-    public boolean validate(String token, RequestDto requestDto) {
+    //devuelve los claims si el token es valido y da acceso a la ruta pedida
+    public Optional<Claims> validate(String token, RequestDto requestDto) {
+        Claims claims;
         try {
-            Jwts.parser().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-        } catch (Exception e) {
-            return false;
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
 
-        if (isTokenExpired(token) || !isAdmin(token) && routeValidator.isAdminPath(requestDto)) {
-            return false;
-        } else {
-            return true;
+        if (!isAdmin(claims) && routeValidator.isAdminPath(requestDto)) {
+            return Optional.empty();
         }
-
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
-    }
-
-    private boolean isAdmin(String token) {
-        return extractAllClaims(token)
-                .get("role")
-                .equals("ROLE_ADMIN");
-    }
-
-    public String getEmailFromToken(String token) {
-        try {
-            return extractAllClaims(token).getSubject();
-        } catch (Exception e) {
-            return "bad token";
-        }
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return Optional.of(claims);
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean isAdmin(Claims claims) {
+        return ADMIN_ROLE.equals(claims.get("role", String.class));
     }
 }
@@ -0,0 +1,99 @@
+package com.xmartin.authservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Limita en memoria los intentos fallidos de login por cuenta desde cada IP y por IP. Los contadores se crean con el
+primer fallo y caducan window despues (ventana fija; sumar un fallo no la alarga). Al superar el maximo se rechaza
+el login antes de calcular ningun hash hasta que acabe la ventana.
+El limite por cuenta va unido a la IP para que nadie pueda bloquear una cuenta ajena fallando a proposito: solo se
+bloquea ese origen. El limite por IP es el que frena probar muchas contraseñas o muchas cuentas desde un mismo
+origen, y un login correcto no lo reinicia.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Cache<String, AtomicInteger> failuresByAccountAndIp;
+    private final Cache<String, AtomicInteger> failuresByIp;
+    private final Duration window;
+    private final int maxFailuresPerAccountAndIp;
+    private final int maxFailuresPerIp;
+    private final Counter throttledByAccountAndIp;
+    private final Counter throttledByIp;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${login-throttle.window:15m}") Duration window,
+                         @Value("${login-throttle.max-failures-per-account-and-ip:5}") int maxFailuresPerAccountAndIp,
+                         @Value("${login-throttle.max-failures-per-ip:50}") int maxFailuresPerIp,
+                         @Value("${login-throttle.maximum-size:100000}") long maximumSize) {
+        this.window = window;
+        this.maxFailuresPerAccountAndIp = maxFailuresPerAccountAndIp;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.failuresByAccountAndIp = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(window).build();
+        this.failuresByIp = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(window).build();
+        this.throttledByAccountAndIp = throttledCounter(meterRegistry, "account-ip");
+        this.throttledByIp = throttledCounter(meterRegistry, "ip");
+    }
+
+    public void checkAllowed(String email, String clientIp) throws TooManyRequestsException {
+        String accountAndIpKey = accountAndIpKey(email, clientIp);
+        if (isOverLimit(failuresByAccountAndIp, accountAndIpKey, maxFailuresPerAccountAndIp)) {
+            throttledByAccountAndIp.increment();
+            throw new TooManyRequestsException("Too many failed login attempts for this account, try again later.",
+                    retryAfterSeconds(failuresByAccountAndIp, accountAndIpKey));
+        }
+        if (clientIp != null && isOverLimit(failuresByIp, clientIp, maxFailuresPerIp)) {
+            throttledByIp.increment();
+            throw new TooManyRequestsException("Too many failed login attempts, try again later.",
+                    retryAfterSeconds(failuresByIp, clientIp));
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        failuresByAccountAndIp.get(accountAndIpKey(email, clientIp), key -> new AtomicInteger()).incrementAndGet();
+        if (clientIp != null) {
+            failuresByIp.get(clientIp, key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    public void recordSuccess(String email, String clientIp) {
+        failuresByAccountAndIp.invalidate(accountAndIpKey(email, clientIp));
+    }
+
+    // Métodos auxiliares privados
+
+    private static boolean isOverLimit(Cache<String, AtomicInteger> failures, String key, int max) {
+        AtomicInteger count = failures.getIfPresent(key);
+        return count != null && count.get() >= max;
+    }
+
+    //lo que queda de ventana para esa clave, como minimo un segundo
+    private long retryAfterSeconds(Cache<String, AtomicInteger> failures, String key) {
+        Duration age = failures.policy().expireAfterWrite()
+                .flatMap(expiration -> expiration.ageOf(key))
+                .orElse(Duration.ZERO);
+        return Math.max(1, window.minus(age).toSeconds());
+    }
+
+    private static String accountAndIpKey(String email, String clientIp) {
+        String account = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        return account + "|" + (clientIp == null ? "" : clientIp);
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected by the failed attempts limit")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
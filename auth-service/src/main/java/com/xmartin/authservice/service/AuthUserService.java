@@ -4,13 +4,16 @@ import com.xmartin.authservice.controller.dto.LoginDto;
 import com.xmartin.authservice.controller.dto.RegisterDto;
 import com.xmartin.authservice.controller.dto.RequestDto;
 import com.xmartin.authservice.controller.dto.TokenDto;
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
 import com.xmartin.authservice.model.UserModel;
 
 public interface AuthUserService {
 
-    public UserModel save(RegisterDto registerDto);
+    public UserModel save(RegisterDto registerDto) throws TooManyRequestsException;
 
-    public TokenDto login(LoginDto loginDto);
+    public TokenDto login(LoginDto loginDto, String clientIp) throws TooManyRequestsException;
 
     public TokenDto validate(String token, RequestDto requestDto);
+
+    public void revokeUser(String email);
 }
@@ -1,17 +1,22 @@
 package com.xmartin.authservice.service.impl;
 
 import com.xmartin.authservice.client.UserClient;
+import com.xmartin.authservice.client.UserExistenceCache;
 import com.xmartin.authservice.controller.dto.LoginDto;
 import com.xmartin.authservice.controller.dto.RegisterDto;
 import com.xmartin.authservice.controller.dto.RequestDto;
 import com.xmartin.authservice.controller.dto.TokenDto;
 import com.xmartin.authservice.model.UserModel;
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
 import com.xmartin.authservice.security.JwtProvider;
+import com.xmartin.authservice.security.LoginThrottle;
+import com.xmartin.authservice.security.PasswordHasher;
 import com.xmartin.authservice.service.AuthUserService;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
 import java.util.Optional;
 
 @Service
@@ -19,16 +24,18 @@ import java.util.Optional;
 public class AuthUserServiceImpl implements AuthUserService {
 
     private final UserClient userClient;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
     private final JwtProvider jwtProvider;
+    private final UserExistenceCache userExistenceCache;
 
     @Override
-    public UserModel save(RegisterDto registerDto) {
+    public UserModel save(RegisterDto registerDto) throws TooManyRequestsException {
 
         boolean exists = userClient.getUserExistsByEmail(registerDto.getEmail());
         if (exists) return null;
 
-        String password = passwordEncoder.encode(registerDto.getPassword());
+        String password = passwordHasher.encode(registerDto.getPassword());
 
         UserModel userModel = UserModel.builder()
                 .name(registerDto.getName())
@@ -40,26 +47,40 @@ public class AuthUserServiceImpl implements AuthUserService {
         return userClient.saveUser(userModel);
     }
 
+    /*
+    Los intentos fallidos se limitan por cuenta desde cada IP y por IP (ver LoginThrottle) y el hash se calcula en el pool de
+    PasswordHasher; en ambos casos la sobrecarga se rechaza con TooManyRequestsException.
+     */
     @Override
-    public TokenDto login(LoginDto loginDto) {
+    public TokenDto login(LoginDto loginDto, String clientIp) throws TooManyRequestsException {
+        loginThrottle.checkAllowed(loginDto.getEmail(), clientIp);
+
         Optional<UserModel> user = userClient.getUserByEmail(loginDto.getEmail());
-        if (user.isEmpty()) return null;
-        if (passwordEncoder.matches(loginDto.getPassword(), user.get().getPassword())) {
+        if (user.isPresent() && passwordHasher.matches(loginDto.getPassword(), user.get().getPassword())) {
+            loginThrottle.recordSuccess(loginDto.getEmail(), clientIp);
             return new TokenDto(jwtProvider.createToken(user.get()));
-        } else {
-            return null;
         }
+
+        loginThrottle.recordFailure(loginDto.getEmail(), clientIp);
+        return null;
     }
 
     @Override
     public TokenDto validate(String token, RequestDto requestDto) {
-        if (!jwtProvider.validate(token, requestDto)) return null;
+        Optional<Claims> claims = jwtProvider.validate(token, requestDto);
+        if (claims.isEmpty()) return null;
 
-        String email = jwtProvider.getEmailFromToken(token);
-        if (userClient.getUserByEmail(email).isEmpty()) return null;
+        //sin llamadas a user-service mientras el usuario este en cache (ver UserExistenceCache)
+        Date issuedAt = claims.get().getIssuedAt();
+        if (!userExistenceCache.isActive(claims.get().getSubject(), issuedAt == null ? null : issuedAt.toInstant())) return null;
 
         return new TokenDto(token);
     }
 
+    @Override
+    public void revokeUser(String email) {
+        userExistenceCache.revoke(email);
+    }
+
 
 }
@@ -2,8 +2,15 @@ package com.xmartin.authservice;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 
 @SpringBootTest
+@TestPropertySource(properties = {
+		"admin-paths.paths[0].uri=/concessionaire/cars",
+		"admin-paths.paths[0].method=POST"
+})
+@ActiveProfiles("dev")
 class AuthServiceApplicationTests {
 
 	@Test
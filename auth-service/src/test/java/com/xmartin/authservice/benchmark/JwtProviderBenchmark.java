@@ -0,0 +1,97 @@
+package com.xmartin.authservice.benchmark;
+
+import com.xmartin.authservice.controller.dto.RequestDto;
+import com.xmartin.authservice.model.UserModel;
+import com.xmartin.authservice.security.JwtKeyProvider;
+import com.xmartin.authservice.security.JwtProvider;
+import com.xmartin.authservice.security.RouteValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+Rendimiento de JwtProvider: creacion de tokens y validacion (usuario normal y ruta de administrador).
+Con el perfil gc (ver main) se ven tambien los bytes reservados por operacion (gc.alloc.rate.norm).
+Se lanza desde el IDE o con:
+  mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+  java -cp target/test-classes:target/classes:$(cat cp.txt) com.xmartin.authservice.benchmark.JwtProviderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtProviderBenchmark {
+
+    private JwtProvider jwtProvider;
+    private UserModel user;
+    private String userToken;
+    private String adminToken;
+    private RequestDto userRequest;
+    private RequestDto adminRequest;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        RouteValidator routeValidator = new RouteValidator();
+        routeValidator.setPaths(List.of(
+                new RequestDto("/users/.+", "DELETE"),
+                new RequestDto("/concessionaire/cars/\\d+", "PUT"),
+                new RequestDto("/concessionaire/brands", "POST")));
+        jwtProvider = new JwtProvider(routeValidator, new JwtKeyProvider("", "", devEnvironment()), 3600000L);
+
+        user = UserModel.builder().id(1).email("user@mail.com").role("ROLE_USER").build();
+        userToken = jwtProvider.createToken(user);
+        adminToken = jwtProvider.createToken(UserModel.builder().id(2).email("admin@mail.com").role("ROLE_ADMIN").build());
+        userRequest = new RequestDto("/cars/5", "GET");
+        adminRequest = new RequestDto("/concessionaire/cars/5", "PUT");
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtProvider.createToken(user);
+    }
+
+    @Benchmark
+    public Optional<?> validateUserPath() {
+        return jwtProvider.validate(userToken, userRequest);
+    }
+
+    @Benchmark
+    public Optional<?> validateAdminPath() {
+        return jwtProvider.validate(adminToken, adminRequest);
+    }
+
+    //sin claves configuradas JwtKeyProvider solo genera un par con el perfil dev
+    private static MockEnvironment devEnvironment() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("dev");
+        return environment;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtProviderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
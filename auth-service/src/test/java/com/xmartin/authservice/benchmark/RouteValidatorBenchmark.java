@@ -0,0 +1,108 @@
+package com.xmartin.authservice.benchmark;
+
+import com.xmartin.authservice.controller.dto.RequestDto;
+import com.xmartin.authservice.security.RouteValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+RouteValidator con reglas precompiladas frente a la implementacion anterior (Pattern.matches por regla y
+peticion), con unos cientos de reglas. Mismo modo de lanzarlo que JwtProviderBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteValidatorBenchmark {
+
+    @Param({"300"})
+    private int rules;
+
+    private RouteValidator routeValidator;
+    private List<RequestDto> paths;
+    private RequestDto literalMatch;
+    private RequestDto regexMatch;
+    private RequestDto noMatch;
+
+    @Setup
+    public void setUp() {
+        String[] methods = {"GET", "POST", "PUT", "DELETE"};
+        paths = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            String method = methods[i % methods.length];
+            paths.add(i % 2 == 0
+                    ? new RequestDto("/service" + i + "/items/\\d+", method)
+                    : new RequestDto("/service" + i + "/admin", method));
+        }
+        routeValidator = new RouteValidator();
+        routeValidator.setPaths(paths);
+
+        literalMatch = new RequestDto("/service" + (rules - 1) + "/admin", methods[(rules - 1) % methods.length]);
+        regexMatch = new RequestDto("/service" + (rules - 2) + "/items/42", methods[(rules - 2) % methods.length]);
+        noMatch = new RequestDto("/cars/42", "GET");
+    }
+
+    @Benchmark
+    public boolean compiledLiteralMatch() {
+        return routeValidator.isAdminPath(literalMatch);
+    }
+
+    @Benchmark
+    public boolean compiledRegexMatch() {
+        return routeValidator.isAdminPath(regexMatch);
+    }
+
+    @Benchmark
+    public boolean compiledNoMatch() {
+        return routeValidator.isAdminPath(noMatch);
+    }
+
+    @Benchmark
+    public boolean legacyLiteralMatch() {
+        return legacyIsAdminPath(literalMatch);
+    }
+
+    @Benchmark
+    public boolean legacyRegexMatch() {
+        return legacyIsAdminPath(regexMatch);
+    }
+
+    @Benchmark
+    public boolean legacyNoMatch() {
+        return legacyIsAdminPath(noMatch);
+    }
+
+    private boolean legacyIsAdminPath(RequestDto requestDto) {
+        return paths.stream()
+                .anyMatch(p ->
+                        Pattern.matches(p.getUri(), requestDto.getUri())
+                                && p.getMethod().equals(requestDto.getMethod()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouteValidatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
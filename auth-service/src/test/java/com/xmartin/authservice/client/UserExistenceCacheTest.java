@@ -0,0 +1,109 @@
+package com.xmartin.authservice.client;
+
+import com.xmartin.authservice.model.UserRevocationModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserExistenceCacheTest {
+
+    private static final String EMAIL = "user@mail.com";
+    private static final long TOKEN_LIFETIME_MS = 3600000L;
+
+    private final UserClient userClient = mock(UserClient.class);
+
+    @Test
+    void revocationIsSeenByEveryInstanceThatPolls() {
+        UserExistenceCache first = cache();
+        UserExistenceCache second = cache();
+        Instant issuedAt = Instant.now().minusSeconds(60).truncatedTo(ChronoUnit.SECONDS);
+        when(userClient.getUserExistsByEmail(EMAIL)).thenReturn(true);
+        assertTrue(first.isActive(EMAIL, issuedAt));
+        assertTrue(second.isActive(EMAIL, issuedAt));
+
+        //el usuario se borra y se vuelve a registrar antes de la consulta: /users/exist ya no lo delata
+        when(userClient.getRevocations(any())).thenReturn(List.of(new UserRevocationModel(EMAIL, Instant.now())));
+        first.pollRevocations();
+        second.pollRevocations();
+
+        assertFalse(first.isActive(EMAIL, issuedAt));
+        assertFalse(second.isActive(EMAIL, issuedAt));
+        assertTrue(second.isActive(EMAIL, Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void tokenIssuedBeforeTheRevocationSecondIsRejected() {
+        UserExistenceCache cache = cache();
+        Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        when(userClient.getRevocations(any())).thenReturn(List.of(new UserRevocationModel(EMAIL, revokedAt.plusMillis(500))));
+        when(userClient.getUserExistsByEmail(EMAIL)).thenReturn(true);
+
+        cache.pollRevocations();
+
+        //el iat de un token tiene precision de segundos
+        assertFalse(cache.isActive(EMAIL, revokedAt.minusSeconds(1)));
+        assertFalse(cache.isActive(EMAIL, null));
+    }
+
+    @Test
+    void userReRegisteredInTheSameSecondAsTheRevocationCanUseItsNewToken() {
+        UserExistenceCache cache = cache();
+        Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        when(userClient.getRevocations(any())).thenReturn(List.of(new UserRevocationModel(EMAIL, revokedAt.plusMillis(200))));
+        cache.pollRevocations();
+
+        //se vuelve a registrar y hace login en el mismo segundo del borrado
+        when(userClient.getUserExistsByEmail(EMAIL)).thenReturn(true);
+
+        assertTrue(cache.isActive(EMAIL, revokedAt));
+        assertTrue(cache.isActive(EMAIL, revokedAt.plusSeconds(1)));
+    }
+
+    @Test
+    void existingUserIsCached() {
+        UserExistenceCache cache = cache();
+        when(userClient.getUserExistsByEmail(EMAIL)).thenReturn(true);
+
+        assertTrue(cache.isActive(EMAIL, Instant.now()));
+        assertTrue(cache.isActive(EMAIL, Instant.now()));
+
+        verify(userClient, times(1)).getUserExistsByEmail(EMAIL);
+    }
+
+    @Test
+    void failedPollIsRetriedFromTheSameInstant() {
+        UserExistenceCache cache = cache();
+        when(userClient.getRevocations(any()))
+                .thenThrow(new IllegalStateException("user-service down"))
+                .thenReturn(List.of(new UserRevocationModel(EMAIL, Instant.now())));
+
+        cache.pollRevocations();
+        cache.pollRevocations();
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(userClient, times(2)).getRevocations(since.capture());
+        assertEquals(since.getAllValues().get(0), since.getAllValues().get(1));
+        assertFalse(cache.isActive(EMAIL, Instant.now().minusSeconds(60)));
+    }
+
+    // Métodos auxiliares privados
+
+    private UserExistenceCache cache() {
+        return new UserExistenceCache(userClient, new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5),
+                Duration.ofSeconds(30), TOKEN_LIFETIME_MS);
+    }
+}
@@ -0,0 +1,36 @@
+package com.xmartin.authservice.controller;
+
+import com.xmartin.authservice.controller.dto.LoginDto;
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
+import com.xmartin.authservice.security.JwtKeyProvider;
+import com.xmartin.authservice.service.AuthUserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthUserControllerTest {
+
+    private final AuthUserService authUserService = mock(AuthUserService.class);
+    private final AuthUserController controller = new AuthUserController(authUserService, mock(JwtKeyProvider.class));
+
+    @Test
+    void throttledLoginIsA429WithRetryAfter() throws TooManyRequestsException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        when(authUserService.login(any(), eq("203.0.113.7")))
+                .thenThrow(new TooManyRequestsException("Too many failed login attempts, try again later.", 42));
+
+        ResponseEntity<?> response = controller.login(new LoginDto(), request);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("42", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
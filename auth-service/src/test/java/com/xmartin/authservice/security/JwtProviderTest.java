@@ -0,0 +1,81 @@
+package com.xmartin.authservice.security;
+
+import com.xmartin.authservice.controller.dto.RequestDto;
+import com.xmartin.authservice.model.UserModel;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtProviderTest {
+
+    private static final long EXPIRATION_MS = 3600000L;
+
+    private final JwtKeyProvider keyProvider = keyProvider();
+    private final JwtProvider jwtProvider = new JwtProvider(routeValidator(), keyProvider, EXPIRATION_MS);
+
+    @Test
+    void tokenIsSignedWithRs256AndCarriesTheUserClaims() {
+        String token = jwtProvider.createToken(UserModel.builder().id(7).email("user@mail.com").role("ROLE_USER").build());
+
+        Jws<Claims> jws = Jwts.parser().verifyWith(keyProvider.getPublicKey()).build().parseSignedClaims(token);
+        Claims claims = jws.getPayload();
+        assertEquals("RS256", jws.getHeader().getAlgorithm());
+        assertEquals(keyProvider.getKeyId(), jws.getHeader().getKeyId());
+        assertEquals("user@mail.com", claims.getSubject());
+        assertEquals(7, claims.get("id", Integer.class));
+        assertEquals("ROLE_USER", claims.get("role", String.class));
+        assertEquals(EXPIRATION_MS, claims.getExpiration().getTime() - claims.getIssuedAt().getTime());
+    }
+
+    @Test
+    void adminPathsNeedTheAdminRole() {
+        String userToken = jwtProvider.createToken(UserModel.builder().id(1).email("user@mail.com").role("ROLE_USER").build());
+        String adminToken = jwtProvider.createToken(UserModel.builder().id(2).email("admin@mail.com").role("ROLE_ADMIN").build());
+        RequestDto adminRequest = new RequestDto("/concessionaire/cars/5", "PUT");
+
+        assertTrue(jwtProvider.validate(userToken, new RequestDto("/cars/5", "GET")).isPresent());
+        assertTrue(jwtProvider.validate(userToken, adminRequest).isEmpty());
+        assertTrue(jwtProvider.validate(adminToken, adminRequest).isPresent());
+    }
+
+    @Test
+    void tokenFromAnotherKeyIsRejected() {
+        JwtProvider otherProvider = new JwtProvider(routeValidator(), keyProvider(), EXPIRATION_MS);
+        String token = otherProvider.createToken(UserModel.builder().id(1).email("user@mail.com").role("ROLE_USER").build());
+
+        assertTrue(jwtProvider.validate(token, new RequestDto("/cars/5", "GET")).isEmpty());
+        assertTrue(jwtProvider.validate("not a token", new RequestDto("/cars/5", "GET")).isEmpty());
+    }
+
+    @Test
+    void missingKeysStopTheStartupOutsideTheDevProfile() {
+        assertThrows(IllegalStateException.class, () -> new JwtKeyProvider("", "", new MockEnvironment()));
+    }
+
+    // Métodos auxiliares privados
+
+    private static RouteValidator routeValidator() {
+        RouteValidator routeValidator = new RouteValidator();
+        routeValidator.setPaths(List.of(new RequestDto("/concessionaire/cars/\\d+", "PUT")));
+        return routeValidator;
+    }
+
+    private static JwtKeyProvider keyProvider() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("dev");
+        try {
+            return new JwtKeyProvider("", "", environment);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
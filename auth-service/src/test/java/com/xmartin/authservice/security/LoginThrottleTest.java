@@ -0,0 +1,74 @@
+package com.xmartin.authservice.security;
+
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleTest {
+
+    private static final String EMAIL = "user@mail.com";
+    private static final String ATTACKER_IP = "203.0.113.7";
+    private static final String OWNER_IP = "198.51.100.20";
+
+    private final LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), Duration.ofMinutes(15), 3, 10, 1000);
+
+    @Test
+    void accountIsBlockedOnlyFromTheIpThatFailed() {
+        fail(EMAIL, ATTACKER_IP, 3);
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> throttle.checkAllowed(" User@Mail.com ", ATTACKER_IP));
+        assertTrue(e.getRetryAfterSeconds() > 0 && e.getRetryAfterSeconds() <= Duration.ofMinutes(15).toSeconds());
+        //el dueño de la cuenta sigue pudiendo entrar desde su IP
+        assertDoesNotThrow(() -> throttle.checkAllowed(EMAIL, OWNER_IP));
+    }
+
+    @Test
+    void ipIsBlockedAfterFailingAcrossManyAccounts() {
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure("user" + i + "@mail.com", ATTACKER_IP);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkAllowed("other@mail.com", ATTACKER_IP));
+        assertDoesNotThrow(() -> throttle.checkAllowed("other@mail.com", OWNER_IP));
+    }
+
+    @Test
+    void successResetsTheAccountButNotTheIp() throws TooManyRequestsException {
+        fail(EMAIL, ATTACKER_IP, 2);
+        throttle.recordSuccess(EMAIL, ATTACKER_IP);
+        fail(EMAIL, ATTACKER_IP, 2);
+        assertDoesNotThrow(() -> throttle.checkAllowed(EMAIL, ATTACKER_IP));
+
+        for (int i = 0; i < 6; i++) {
+            throttle.recordFailure("user" + i + "@mail.com", ATTACKER_IP);
+            throttle.recordSuccess("user" + i + "@mail.com", ATTACKER_IP);
+        }
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkAllowed(EMAIL, ATTACKER_IP));
+    }
+
+    @Test
+    void countersExpireWithTheWindow() throws InterruptedException {
+        LoginThrottle shortWindow = new LoginThrottle(new SimpleMeterRegistry(), Duration.ofMillis(100), 1, 10, 1000);
+        shortWindow.recordFailure(EMAIL, ATTACKER_IP);
+        assertThrows(TooManyRequestsException.class, () -> shortWindow.checkAllowed(EMAIL, ATTACKER_IP));
+
+        Thread.sleep(200);
+
+        assertDoesNotThrow(() -> shortWindow.checkAllowed(EMAIL, ATTACKER_IP));
+    }
+
+    // Métodos auxiliares privados
+
+    private void fail(String email, String clientIp, int times) {
+        for (int i = 0; i < times; i++) {
+            throttle.recordFailure(email, clientIp);
+        }
+    }
+}
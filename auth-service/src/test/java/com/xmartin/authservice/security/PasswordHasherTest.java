@@ -0,0 +1,94 @@
+package com.xmartin.authservice.security;
+
+import com.xmartin.authservice.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hasher.shutdown();
+    }
+
+    @Test
+    void hashRunsOnTheHashingPool() throws TooManyRequestsException {
+        hasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 5000, 2);
+        when(passwordEncoder.encode("secret")).thenAnswer(invocation -> Thread.currentThread().getName());
+
+        assertTrue(hasher.encode("secret").startsWith("password-hashing-"));
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+        hasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 5000, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+
+        //uno ocupa el unico hilo y otro la unica plaza de la cola
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> matches(hasher));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> matches(hasher));
+        waitForQueued(1);
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> hasher.matches("secret", "hash"));
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("auth.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hashThatTakesTooLongIsRejectedWithRetryAfter() throws InterruptedException {
+        hasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 100, 3);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return "hash";
+        });
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> hasher.encode("secret"));
+        assertEquals(3, e.getRetryAfterSeconds());
+    }
+
+    // Métodos auxiliares privados
+
+    private boolean matches(PasswordHasher hasher) {
+        try {
+            return hasher.matches("secret", "hash");
+        } catch (TooManyRequestsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void waitForQueued(int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.get("executor.queued").gauge().value() < expected; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, meterRegistry.get("executor.queued").gauge().value());
+    }
+}
@@ -2,14 +2,17 @@ package com.xmartin.brand_service.client;
 
 
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 @FeignClient(name = "car-registry")
 public interface CarClient {
 
-    @DeleteMapping("/cars/brand/{brandId}")
-    void deleteAllCarsByBrandId(@PathVariable Integer brandId);
+    //borra los coches de varias marcas a la vez, es idempotente
+    @PostMapping("/cars/brand/delete-batch")
+    void deleteAllCarsByBrandIds(@RequestBody List<Integer> brandIds);
 
 
 }
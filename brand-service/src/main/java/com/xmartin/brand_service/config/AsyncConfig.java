@@ -1,5 +1,6 @@
 package com.xmartin.brand_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -11,14 +12,18 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
     /*
-    Executor con el que proporcionamos un pool de hilos para usar en métodos marcados como asincronos
+    Executor con el que proporcionamos un pool de hilos para usar en métodos marcados como asincronos.
+    El pool y su cola son acotados a proposito: las tareas pasan casi todo el tiempo en JDBC y Feign, y un maximo
+    de hilos por encima del pool de conexiones de Hikari solo haria que esperasen una conexion hasta el timeout.
      */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(@Value("${async-executor.core-pool-size:5}") int corePoolSize,
+                                 @Value("${async-executor.max-pool-size:10}") int maxPoolSize,
+                                 @Value("${async-executor.queue-capacity:100}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("BrandServiceThread-");
         executor.initialize();
         return executor;
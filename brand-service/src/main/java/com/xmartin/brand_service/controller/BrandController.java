@@ -1,9 +1,14 @@
 package com.xmartin.brand_service.controller;
 
 
+import com.xmartin.brand_service.controller.dtos.BrandBulkResponse;
+import com.xmartin.brand_service.controller.dtos.BrandChangesResponse;
 import com.xmartin.brand_service.controller.dtos.BrandRequest;
 import com.xmartin.brand_service.controller.dtos.BrandResponse;
 import com.xmartin.brand_service.controller.mappers.BrandMapper;
+import com.xmartin.brand_service.domain.BrandChange;
+import com.xmartin.brand_service.domain.BrandUpsertPolicy;
+import com.xmartin.brand_service.domain.ResourceVersion;
 import com.xmartin.brand_service.exceptions.BrandConflictException;
 import com.xmartin.brand_service.exceptions.BrandNotFoundException;
 import com.xmartin.brand_service.exceptions.FailedToLoadBrandsException;
@@ -16,8 +21,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
@@ -34,6 +42,8 @@ public class BrandController {
 
     private final BrandMapper brandMapper;
 
+    private static final int MAX_CHANGES = 5000;
+
     /*
     endpoint para añadir una sola marca. Si hay un error devuelve error 500, si no devuelve el objeto response
      */
@@ -50,6 +60,32 @@ public class BrandController {
         }
     }
 
+    /*
+    endpoint para dar de alta o actualizar muchas marcas en una sola llamada. policy indica que hacer con las que
+    ya existen: skip las deja como estan, update las actualiza y fail (por defecto) no escribe nada si hay alguna,
+    respondiendo 409. Devuelve el resultado de cada elemento en el mismo orden de la peticion.
+     */
+    @Operation(summary = "Bulk upsert brands", description = "Creates or updates a list of brands. " +
+            "policy=skip|update|fail decides what happens with brands that already exist.")
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkUpsertBrands(@RequestBody List<BrandRequest> requests,
+                                              @RequestParam(defaultValue = "fail") String policy) {
+        BrandUpsertPolicy upsertPolicy;
+        try {
+            upsertPolicy = BrandUpsertPolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unknown policy " + policy + ", use skip, update or fail");
+        }
+
+        try {
+            BrandBulkResponse response = brandMapper.toBulkResponse(
+                    service.bulkUpsertBrands(brandMapper.toModelList(requests), upsertPolicy));
+            return ResponseEntity.status(response.isAborted() ? HttpStatus.CONFLICT : HttpStatus.OK).body(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /*
     endpoint para eliminar una sola marca por ID. Si hay un error devuelve error 500 y si no lo encuentra
      devuelve error 404 noy found, si lo encuentra devuelve un mensaje con el id del objeto eliminado.
@@ -120,13 +156,68 @@ public class BrandController {
         }
     }
 
+    /*
+      endpoints para obtener varias marcas en una sola llamada, por lista de IDs o por lista de nombres.
+      Las marcas que no existen simplemente no aparecen en la respuesta.
+    */
+    @Operation(summary = "Get brands by ids", description = "Returns the brands for the specified brand IDs.")
+    @GetMapping("/batch")
+    public ResponseEntity<?> getBrandsByIds(@RequestParam List<Integer> ids) {
+        try {
+            return ResponseEntity.ok(brandMapper.toResponseList(service.getBrandsByIds(ids)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get brands by names", description = "Returns the brands for the specified names.")
+    @PostMapping("/batch/by-name")
+    public ResponseEntity<?> getBrandsByNames(@RequestBody List<String> names) {
+        try {
+            return ResponseEntity.ok(brandMapper.toResponseList(service.getBrandsByNames(names)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /*
+      endpoint con los cambios de marcas posteriores a since (altas, modificaciones y borrados), en orden. El cliente
+      guarda lastSeq y lo manda como since en la siguiente llamada; si hasMore es true quedan mas cambios.
+    */
+    @Operation(summary = "Get brand changes", description = "Returns the brand changes after the specified sequence number.")
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(defaultValue = "0") long since,
+                                        @RequestParam(defaultValue = "500") int limit) {
+        if (limit < 1 || limit > MAX_CHANGES) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("limit must be between 1 and " + MAX_CHANGES);
+        }
+
+        try {
+            List<BrandChange> changes = service.getChanges(since, limit);
+            return ResponseEntity.ok(BrandChangesResponse.builder()
+                    .changes(brandMapper.toChangeResponseList(changes))
+                    .lastSeq(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq())
+                    .hasMore(changes.size() == limit)
+                    .build());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /*
       endpoint para obtener todas las marcas. Si hay un error devuelve error 500 y si no devuelve el objeto response.
-      será asincrono por lo que uso completable future.
+      será asincrono por lo que uso completable future. Devuelve ETag y Last-Modified, y si el listado no ha cambiado
+      desde el If-None-Match del cliente responde 304 sin cargar las marcas.
     */
     @Operation(summary = "Get all brands", description = "Returns a list of brand data.")
     @GetMapping
-    public CompletableFuture<ResponseEntity<?>> getBrands() {
+    public CompletableFuture<ResponseEntity<?>> getBrands(WebRequest request) {
+
+        ResourceVersion version = service.getBrandsVersion();
+        if (request.checkNotModified(version.getTag(), version.getLastModified().toEpochMilli())) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(version.getTag()).lastModified(version.getLastModified()).build());
+        }
 
         return service.getBrands()
                 .thenApplyAsync(brandMapper::toResponseList)
@@ -134,7 +225,7 @@ public class BrandController {
                     if (brands.isEmpty()) {
                         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
                     } else {
-                        return ResponseEntity.ok(brands);
+                        return ResponseEntity.ok().eTag(version.getTag()).lastModified(version.getLastModified()).body(brands);
                     }
                 })
                 .exceptionallyAsync(throwable -> ResponseEntity.internalServerError().build());
@@ -0,0 +1,43 @@
+package com.xmartin.brand_service.controller;
+
+import com.xmartin.brand_service.service.outbox.OutboxRelay;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/brands/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final OutboxRelay outboxRelay;
+
+    /*
+    endpoint para saber cuantos eventos ha rechazado car-registry hasta darlos por perdidos
+     */
+    @Operation(summary = "Count dead outbox events", description = "Events car-registry rejected too many times.")
+    @GetMapping("/dead")
+    public ResponseEntity<?> countDead() {
+        try {
+            return ResponseEntity.ok(Map.of("dead", outboxRelay.countDead()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /*
+    endpoint para volver a enviar los eventos DEAD una vez corregida la causa del rechazo
+     */
+    @Operation(summary = "Requeue dead outbox events", description = "Moves every dead outbox event back to pending.")
+    @PostMapping("/dead/retry")
+    public ResponseEntity<?> requeueDead() {
+        try {
+            return ResponseEntity.ok(Map.of("requeued", outboxRelay.requeueDead()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
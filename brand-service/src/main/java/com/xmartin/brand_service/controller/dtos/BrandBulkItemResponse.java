@@ -0,0 +1,20 @@
+package com.xmartin.brand_service.controller.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BrandBulkItemResponse {
+    private int index;
+    private String name;
+    private Integer id;
+    private String outcome;
+    private String message;
+}
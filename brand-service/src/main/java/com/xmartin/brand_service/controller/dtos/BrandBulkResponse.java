@@ -0,0 +1,21 @@
+package com.xmartin.brand_service.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrandBulkResponse {
+    private boolean aborted;
+    private int created;
+    private int updated;
+    private int skipped;
+    private int failed;
+    private List<BrandBulkItemResponse> items;
+}
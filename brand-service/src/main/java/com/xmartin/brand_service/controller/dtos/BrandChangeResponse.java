@@ -0,0 +1,22 @@
+package com.xmartin.brand_service.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrandChangeResponse {
+    private Long seq;
+    private Integer brandId;
+    private String changeType;
+    private String name;
+    private Integer warranty;
+    private String country;
+    private Instant changedAt;
+}
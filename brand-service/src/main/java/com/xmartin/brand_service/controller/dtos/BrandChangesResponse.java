@@ -0,0 +1,19 @@
+package com.xmartin.brand_service.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrandChangesResponse {
+    private List<BrandChangeResponse> changes;
+    //since para la siguiente llamada
+    private long lastSeq;
+    private boolean hasMore;
+}
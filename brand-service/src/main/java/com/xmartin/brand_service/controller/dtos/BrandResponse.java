@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -14,4 +16,6 @@ public class BrandResponse {
     private String name;
     private Integer warranty;
     private String country;
+    private Long version;
+    private Instant lastModified;
 }
@@ -1,8 +1,14 @@
 package com.xmartin.brand_service.controller.mappers;
 
+import com.xmartin.brand_service.controller.dtos.BrandBulkItemResponse;
+import com.xmartin.brand_service.controller.dtos.BrandBulkResponse;
+import com.xmartin.brand_service.controller.dtos.BrandChangeResponse;
 import com.xmartin.brand_service.controller.dtos.BrandRequest;
 import com.xmartin.brand_service.controller.dtos.BrandResponse;
 import com.xmartin.brand_service.domain.Brand;
+import com.xmartin.brand_service.domain.BrandBulkItemResult;
+import com.xmartin.brand_service.domain.BrandBulkResult;
+import com.xmartin.brand_service.domain.BrandChange;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -26,10 +32,55 @@ public class BrandMapper {
         brandResponse.setName(brand.getName());
         brandResponse.setCountry(brand.getCountry());
         brandResponse.setWarranty(brand.getWarranty());
+        brandResponse.setVersion(brand.getVersion());
+        brandResponse.setLastModified(brand.getLastModified());
         return brandResponse;
     }
 
     public List<BrandResponse> toResponseList(List<Brand> brandList) {
         return brandList.stream().map(this::toResponse).toList();
     }
+
+    public List<Brand> toModelList(List<BrandRequest> brandRequests) {
+        return brandRequests.stream().map(this::toModel).toList();
+    }
+
+    public BrandChangeResponse toChangeResponse(BrandChange change) {
+        if (change == null) return null;
+        return BrandChangeResponse.builder()
+                .seq(change.getSeq())
+                .brandId(change.getBrandId())
+                .changeType(change.getChangeType().name())
+                .name(change.getName())
+                .warranty(change.getWarranty())
+                .country(change.getCountry())
+                .changedAt(change.getChangedAt())
+                .build();
+    }
+
+    public List<BrandChangeResponse> toChangeResponseList(List<BrandChange> changes) {
+        return changes.stream().map(this::toChangeResponse).toList();
+    }
+
+    public BrandBulkResponse toBulkResponse(BrandBulkResult result) {
+        if (result == null) return null;
+        return BrandBulkResponse.builder()
+                .aborted(result.isAborted())
+                .created(result.getCreated())
+                .updated(result.getUpdated())
+                .skipped(result.getSkipped())
+                .failed(result.getFailed())
+                .items(result.getItems().stream().map(this::toBulkItemResponse).toList())
+                .build();
+    }
+
+    private BrandBulkItemResponse toBulkItemResponse(BrandBulkItemResult item) {
+        return BrandBulkItemResponse.builder()
+                .index(item.getIndex())
+                .name(item.getName())
+                .id(item.getId())
+                .outcome(item.getOutcome().name())
+                .message(item.getMessage())
+                .build();
+    }
 }
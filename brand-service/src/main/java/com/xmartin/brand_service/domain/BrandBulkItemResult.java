@@ -0,0 +1,19 @@
+package com.xmartin.brand_service.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrandBulkItemResult {
+    //posicion del elemento en la peticion
+    private int index;
+    private String name;
+    private Integer id;
+    private BrandBulkOutcome outcome;
+    private String message;
+}
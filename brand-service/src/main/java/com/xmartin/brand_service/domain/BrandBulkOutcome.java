@@ -0,0 +1,10 @@
+package com.xmartin.brand_service.domain;
+
+public enum BrandBulkOutcome {
+    CREATED,
+    UPDATED,
+    SKIPPED,
+    CONFLICT,
+    INVALID,
+    FAILED
+}
@@ -0,0 +1,24 @@
+package com.xmartin.brand_service.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrandBulkResult {
+    //true si con la politica FAIL habia conflictos y no se ha escrito nada
+    private boolean aborted;
+    private int created;
+    private int updated;
+    private int skipped;
+    private int failed;
+    @Builder.Default
+    private List<BrandBulkItemResult> items = new ArrayList<>();
+}
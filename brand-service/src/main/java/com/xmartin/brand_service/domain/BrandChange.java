@@ -0,0 +1,23 @@
+package com.xmartin.brand_service.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//un cambio del feed de marcas, con el estado de la marca despues del cambio
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrandChange {
+    private Long seq;
+    private Integer brandId;
+    private BrandChangeType changeType;
+    private String name;
+    private Integer warranty;
+    private String country;
+    private Instant changedAt;
+}
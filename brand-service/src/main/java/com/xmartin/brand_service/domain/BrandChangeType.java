@@ -0,0 +1,7 @@
+package com.xmartin.brand_service.domain;
+
+public enum BrandChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
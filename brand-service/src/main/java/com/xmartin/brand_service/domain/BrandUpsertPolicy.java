@@ -0,0 +1,8 @@
+package com.xmartin.brand_service.domain;
+
+//que hacer en una carga masiva cuando ya existe una marca con el mismo nombre
+public enum BrandUpsertPolicy {
+    SKIP,
+    UPDATE,
+    FAIL
+}
@@ -0,0 +1,6 @@
+package com.xmartin.brand_service.domain;
+
+public enum OutboxEventType {
+    //borrar en car-registry los coches de la marca indicada en aggregate_id
+    DELETE_CARS_BY_BRAND
+}
@@ -0,0 +1,8 @@
+package com.xmartin.brand_service.domain;
+
+public enum OutboxStatus {
+    PENDING,
+    DONE,
+    //car-registry lo ha rechazado el numero maximo de veces; se reenvia con POST /brands/outbox/dead/retry
+    DEAD
+}
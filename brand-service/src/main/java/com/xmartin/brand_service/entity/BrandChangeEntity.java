@@ -0,0 +1,32 @@
+package com.xmartin.brand_service.entity;
+
+import com.xmartin.brand_service.domain.BrandChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "brand_change")
+public class BrandChangeEntity {
+    //se asigna desde brand_change_sequence, ver BrandChangeRecorder
+    @Id
+    private Long seq;
+    @Column(name = "brand_id", nullable = false)
+    private Integer brandId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false)
+    private BrandChangeType changeType;
+    private String name;
+    private Integer warranty;
+    private String country;
+    @Column(name = "changed_at")
+    private Instant changedAt;
+}
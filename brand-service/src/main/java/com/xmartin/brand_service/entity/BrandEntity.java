@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,6 +19,20 @@ public class BrandEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
     private String name;
+    //columna generada en MySQL a partir de name, solo lectura
+    @Column(name = "name_normalized", insertable = false, updatable = false)
+    private String nameNormalized;
     private Integer warranty;
     private String country;
+    //se incrementa en cada update, sirve de ETag junto con last_modified
+    @Version
+    private Long version;
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
 }
@@ -0,0 +1,42 @@
+package com.xmartin.brand_service.entity;
+
+import com.xmartin.brand_service.domain.OutboxEventType;
+import com.xmartin.brand_service.domain.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEventEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private OutboxEventType eventType;
+    @Column(name = "aggregate_id", nullable = false)
+    private Integer aggregateId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+    private int attempts;
+    //rechazos definitivos de car-registry; al llegar a outbox.max-attempts el evento pasa a DEAD
+    private int rejections;
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+    @Column(name = "last_error")
+    private String lastError;
+    @Column(name = "created_at")
+    private Instant createdAt;
+    @Column(name = "processed_at")
+    private Instant processedAt;
+}
@@ -0,0 +1,29 @@
+package com.xmartin.brand_service.repository;
+
+import com.xmartin.brand_service.entity.BrandChangeEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BrandChangeRepository extends JpaRepository<BrandChangeEntity, Long> {
+
+    List<BrandChangeEntity> findAllBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+
+    /*
+    Lee el ultimo numero de secuencia asignado y bloquea la fila del contador hasta el commit, asi que las
+    transacciones que escriben cambios se ordenan y un numero mas alto nunca se hace visible antes que uno mas bajo.
+    Se llama justo antes de advanceSeq, dentro de la misma transaccion.
+     */
+    @Query(value = "SELECT value FROM brand_change_sequence WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    long lockLastSeq();
+
+    //reserva count numeros a continuacion del valor leido con lockLastSeq
+    @Modifying
+    @Query(value = "UPDATE brand_change_sequence SET value = value + :count WHERE id = 1", nativeQuery = true)
+    int advanceSeq(@Param("count") int count);
+
+}
@@ -4,10 +4,17 @@ package com.xmartin.brand_service.repository;
 import com.xmartin.brand_service.entity.BrandEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
 public interface BrandRepository extends JpaRepository<BrandEntity, Integer> {
 
-    Optional<BrandEntity> findByNameIgnoreCase(String name);
+    /*
+    name_normalized es LOWER(TRIM(name)), generada por MySQL y con indice unico, asi que estas consultas usan el
+    indice en lugar de aplicar LOWER a cada fila. Los nombres tienen que llegar normalizados (BrandCatalog.normalize).
+     */
+    boolean existsByNameNormalized(String nameNormalized);
+
+    List<BrandEntity> findAllByNameNormalizedIn(Collection<String> namesNormalized);
 
 }
@@ -0,0 +1,29 @@
+package com.xmartin.brand_service.repository;
+
+import com.xmartin.brand_service.domain.OutboxStatus;
+import com.xmartin.brand_service.entity.OutboxEventEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    //eventos pendientes cuyo siguiente intento ya ha llegado, en orden de creacion
+    List<OutboxEventEntity> findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(OutboxStatus status, Instant now, Limit limit);
+
+    long countByStatus(OutboxStatus status);
+
+    //vuelve a poner en cola los eventos DEAD, con los rechazos a cero
+    @Transactional
+    @Modifying
+    @Query("update OutboxEventEntity e set e.status = com.xmartin.brand_service.domain.OutboxStatus.PENDING, " +
+            "e.rejections = 0, e.nextAttemptAt = :now where e.status = com.xmartin.brand_service.domain.OutboxStatus.DEAD")
+    int requeueDead(@Param("now") Instant now);
+
+}
@@ -2,6 +2,10 @@ package com.xmartin.brand_service.service;
 
 
 import com.xmartin.brand_service.domain.Brand;
+import com.xmartin.brand_service.domain.BrandBulkResult;
+import com.xmartin.brand_service.domain.BrandChange;
+import com.xmartin.brand_service.domain.BrandUpsertPolicy;
+import com.xmartin.brand_service.domain.ResourceVersion;
 import com.xmartin.brand_service.exceptions.BrandConflictException;
 import com.xmartin.brand_service.exceptions.BrandNotFoundException;
 import com.xmartin.brand_service.exceptions.FailedToLoadBrandsException;
@@ -20,10 +24,20 @@ public interface BrandService {
 
     CompletableFuture<List<Brand>> getBrands();
 
+    ResourceVersion getBrandsVersion();
+
     Brand getBrandById(Integer id) throws BrandNotFoundException;
 
     Brand getBrandByName(String name) throws BrandNotFoundException;
 
+    List<Brand> getBrandsByIds(List<Integer> ids);
+
+    List<Brand> getBrandsByNames(List<String> names);
+
+    List<BrandChange> getChanges(long since, int limit);
+
+    BrandBulkResult bulkUpsertBrands(List<Brand> brands, BrandUpsertPolicy policy);
+
     List<Brand> uploadBrands(MultipartFile file) throws BrandConflictException, FailedToLoadBrandsException;
 
     String downloadBrands();
@@ -0,0 +1,190 @@
+package com.xmartin.brand_service.service.bulk;
+
+import com.xmartin.brand_service.domain.Brand;
+import com.xmartin.brand_service.domain.BrandBulkItemResult;
+import com.xmartin.brand_service.domain.BrandBulkOutcome;
+import com.xmartin.brand_service.domain.BrandBulkResult;
+import com.xmartin.brand_service.domain.BrandChangeType;
+import com.xmartin.brand_service.domain.BrandUpsertPolicy;
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.repository.BrandRepository;
+import com.xmartin.brand_service.service.catalog.BrandCatalog;
+import com.xmartin.brand_service.service.changes.BrandChangeRecorder;
+import com.xmartin.brand_service.service.converters.BrandConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+Alta y actualizacion masiva de marcas. Los elementos se procesan en bloques de chunkSize, cada uno en su propia
+transaccion y con una sola consulta IN para saber que marcas existen ya. Cada elemento de la peticion recibe su
+resultado; si un bloque falla al escribir se deshace entero y sus elementos quedan como FAILED.
+ */
+@Component
+@Slf4j
+public class BrandBulkWriter {
+
+    private final BrandRepository repository;
+    private final BrandConverter brandConverter;
+    private final BrandChangeRecorder brandChangeRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BrandBulkWriter(BrandRepository repository,
+                           BrandConverter brandConverter,
+                           BrandChangeRecorder brandChangeRecorder,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${brand-upload.chunk-size:1000}") int chunkSize) {
+        this.repository = repository;
+        this.brandConverter = brandConverter;
+        this.brandChangeRecorder = brandChangeRecorder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public BrandBulkResult upsert(List<Brand> brands, BrandUpsertPolicy policy) {
+        BrandBulkItemResult[] items = new BrandBulkItemResult[brands.size()];
+
+        //validacion en memoria: nombre obligatorio y sin repetir dentro de la peticion
+        Map<String, Integer> indexByName = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < brands.size(); i++) {
+            String name = brands.get(i) == null ? null : brands.get(i).getName();
+            if (name == null || name.isBlank()) {
+                items[i] = item(i, name, null, BrandBulkOutcome.INVALID, "Name is required");
+            } else if (indexByName.putIfAbsent(BrandCatalog.normalize(name), i) != null) {
+                items[i] = item(i, name, null, BrandBulkOutcome.INVALID, "Duplicated in request");
+            } else {
+                pending.add(i);
+            }
+        }
+
+        //con FAIL se comprueba todo antes de escribir, y si hay algun problema no se escribe nada
+        if (policy == BrandUpsertPolicy.FAIL && (pending.size() < brands.size() || hasConflicts(brands, pending, items))) {
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == null) {
+                    items[i] = item(i, brands.get(i).getName(), null, BrandBulkOutcome.SKIPPED, "Not processed");
+                }
+            }
+            return toResult(items, true);
+        }
+
+        for (List<Integer> chunk : chunks(pending)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(brands, chunk, policy, items));
+            } catch (DataAccessException e) {
+                log.warn("Bulk brand chunk rolled back", e);
+                for (Integer i : chunk) {
+                    items[i] = item(i, brands.get(i).getName(), null, BrandBulkOutcome.FAILED, e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        return toResult(items, false);
+    }
+
+    // Métodos auxiliares privados
+
+    private boolean hasConflicts(List<Brand> brands, List<Integer> pending, BrandBulkItemResult[] items) {
+        boolean conflicts = false;
+        for (List<Integer> chunk : chunks(pending)) {
+            Map<String, BrandEntity> existing = findExisting(brands, chunk);
+            for (Integer i : chunk) {
+                BrandEntity brandEntity = existing.get(BrandCatalog.normalize(brands.get(i).getName()));
+                if (brandEntity != null) {
+                    items[i] = item(i, brands.get(i).getName(), brandEntity.getId(), BrandBulkOutcome.CONFLICT, "Brand already exists");
+                    conflicts = true;
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private void writeChunk(List<Brand> brands, List<Integer> chunk, BrandUpsertPolicy policy, BrandBulkItemResult[] items) {
+        Map<String, BrandEntity> existing = findExisting(brands, chunk);
+
+        List<BrandEntity> newEntities = new ArrayList<>();
+        List<Integer> newIndexes = new ArrayList<>();
+        List<BrandEntity> updatedEntities = new ArrayList<>();
+        for (Integer i : chunk) {
+            Brand brand = brands.get(i);
+            BrandEntity brandEntity = existing.get(BrandCatalog.normalize(brand.getName()));
+
+            if (brandEntity == null) {
+                BrandEntity newEntity = brandConverter.toEntity(brand);
+                newEntity.setId(null);
+                newEntities.add(newEntity);
+                newIndexes.add(i);
+            } else if (policy == BrandUpsertPolicy.UPDATE) {
+                //entidad cargada en esta transaccion: el update se hace al hacer flush y sube la version
+                brandConverter.updateEntity(brandEntity, brand);
+                updatedEntities.add(brandEntity);
+                items[i] = item(i, brand.getName(), brandEntity.getId(), BrandBulkOutcome.UPDATED, null);
+            } else if (policy == BrandUpsertPolicy.SKIP) {
+                items[i] = item(i, brand.getName(), brandEntity.getId(), BrandBulkOutcome.SKIPPED, "Brand already exists");
+            } else {
+                //creada por otra peticion despues de la comprobacion previa
+                items[i] = item(i, brand.getName(), brandEntity.getId(), BrandBulkOutcome.CONFLICT, "Brand already exists");
+            }
+        }
+
+        List<BrandEntity> saved = repository.saveAll(newEntities);
+        repository.flush();
+        brandChangeRecorder.record(saved, BrandChangeType.CREATED);
+        brandChangeRecorder.record(updatedEntities, BrandChangeType.UPDATED);
+        for (int j = 0; j < saved.size(); j++) {
+            int i = newIndexes.get(j);
+            items[i] = item(i, saved.get(j).getName(), saved.get(j).getId(), BrandBulkOutcome.CREATED, null);
+        }
+    }
+
+    private Map<String, BrandEntity> findExisting(List<Brand> brands, List<Integer> chunk) {
+        List<String> names = chunk.stream().map(i -> BrandCatalog.normalize(brands.get(i).getName())).toList();
+        return repository.findAllByNameNormalizedIn(names).stream()
+                .collect(Collectors.toMap(BrandEntity::getNameNormalized, Function.identity()));
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            chunks.add(indexes.subList(from, Math.min(from + chunkSize, indexes.size())));
+        }
+        return chunks;
+    }
+
+    private static BrandBulkItemResult item(int index, String name, Integer id, BrandBulkOutcome outcome, String message) {
+        return BrandBulkItemResult.builder()
+                .index(index)
+                .name(name)
+                .id(id)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+
+    private static BrandBulkResult toResult(BrandBulkItemResult[] items, boolean aborted) {
+        Map<BrandBulkOutcome, Long> counts = Arrays.stream(items)
+                .collect(Collectors.groupingBy(BrandBulkItemResult::getOutcome, Collectors.counting()));
+
+        return BrandBulkResult.builder()
+                .aborted(aborted)
+                .created(counts.getOrDefault(BrandBulkOutcome.CREATED, 0L).intValue())
+                .updated(counts.getOrDefault(BrandBulkOutcome.UPDATED, 0L).intValue())
+                .skipped(counts.getOrDefault(BrandBulkOutcome.SKIPPED, 0L).intValue())
+                .failed(items.length - counts.getOrDefault(BrandBulkOutcome.CREATED, 0L).intValue()
+                        - counts.getOrDefault(BrandBulkOutcome.UPDATED, 0L).intValue()
+                        - counts.getOrDefault(BrandBulkOutcome.SKIPPED, 0L).intValue())
+                .items(List.of(items))
+                .build();
+    }
+}
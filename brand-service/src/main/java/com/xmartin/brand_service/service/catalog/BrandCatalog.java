@@ -0,0 +1,139 @@
+package com.xmartin.brand_service.service.catalog;
+
+import com.xmartin.brand_service.domain.Brand;
+import com.xmartin.brand_service.domain.ResourceVersion;
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.repository.BrandRepository;
+import com.xmartin.brand_service.service.converters.BrandConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+Copia en memoria de todas las marcas, indexada por id y por nombre normalizado. El catalogo es pequeño y cambia
+poco, asi que las lecturas se sirven desde aqui sin ir a MySQL. Cada foto es inmutable y se sustituye entera
+despues de cada escritura (al hacer commit) y periodicamente, para recoger cambios hechos por otras instancias.
+Las marcas que devuelve son compartidas y no se deben modificar.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BrandCatalog {
+
+    private final BrandRepository repository;
+    private final BrandConverter brandConverter;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<Brand> findById(Integer id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    public Optional<Brand> findByName(String name) {
+        return Optional.ofNullable(current().byName().get(normalize(name)));
+    }
+
+    public List<Brand> findAll() {
+        return current().all();
+    }
+
+    public ResourceVersion getVersion() {
+        return current().version();
+    }
+
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${brand-catalog.refresh-interval-ms:300000}",
+            initialDelayString = "${brand-catalog.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            //nos quedamos con la foto anterior hasta el siguiente intento
+            log.warn("Failed to refresh brand catalog", e);
+        }
+    }
+
+    /*
+    Recarga el catalogo cuando termine la transaccion actual, para no publicar cambios que aun pueden deshacerse.
+    Sin transaccion activa recarga en el momento.
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    //las recargas van en serie para que una lectura antigua nunca sustituya a una mas reciente
+    public synchronized void refresh() {
+        snapshot = buildSnapshot(repository.findAll(Sort.by("id")));
+        log.debug("Brand catalog refreshed with {} brands", snapshot.all().size());
+    }
+
+    // Métodos auxiliares privados
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private Snapshot buildSnapshot(List<BrandEntity> brandEntities) {
+        Map<Integer, Brand> byId = new HashMap<>();
+        Map<String, Brand> byName = new HashMap<>();
+        StringBuilder fingerprint = new StringBuilder();
+        Instant lastModified = Instant.EPOCH;
+
+        List<Brand> all = brandConverter.toBrandList(brandEntities);
+        for (Brand brand : all) {
+            byId.put(brand.getId(), brand);
+            byName.put(normalize(brand.getName()), brand);
+            fingerprint.append(brand.getId()).append(':').append(brand.getVersion()).append(';');
+            if (brand.getLastModified() != null && brand.getLastModified().isAfter(lastModified)) {
+                lastModified = brand.getLastModified();
+            }
+        }
+
+        ResourceVersion version = ResourceVersion.builder()
+                .tag(DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)))
+                .lastModified(lastModified)
+                .build();
+        return new Snapshot(Map.copyOf(byId), Map.copyOf(byName), all, version);
+    }
+
+    private record Snapshot(Map<Integer, Brand> byId, Map<String, Brand> byName, List<Brand> all,
+                            ResourceVersion version) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.xmartin.brand_service.service.changes;
+
+import com.xmartin.brand_service.domain.BrandChangeType;
+import com.xmartin.brand_service.entity.BrandChangeEntity;
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.repository.BrandChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Apunta en brand_change cada alta, modificacion o borrado de marcas. Tiene que llamarse dentro de la transaccion
+que hace el cambio, para que el feed y la tabla brand nunca se separen.
+ */
+@Component
+@RequiredArgsConstructor
+public class BrandChangeRecorder {
+
+    private final BrandChangeRepository changeRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BrandEntity brandEntity, BrandChangeType changeType) {
+        record(List.of(brandEntity), changeType);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<BrandEntity> brandEntities, BrandChangeType changeType) {
+        if (brandEntities.isEmpty()) return;
+
+        //el SELECT ... FOR UPDATE y el UPDATE van en la misma transaccion: nadie puede leer el contador entre los dos
+        long seq = changeRepository.lockLastSeq();
+        changeRepository.advanceSeq(brandEntities.size());
+        Instant now = Instant.now();
+
+        List<BrandChangeEntity> changes = new ArrayList<>(brandEntities.size());
+        for (BrandEntity brandEntity : brandEntities) {
+            changes.add(BrandChangeEntity.builder()
+                    .seq(++seq)
+                    .brandId(brandEntity.getId())
+                    .changeType(changeType)
+                    .name(brandEntity.getName())
+                    .warranty(brandEntity.getWarranty())
+                    .country(brandEntity.getCountry())
+                    .changedAt(now)
+                    .build());
+        }
+        changeRepository.saveAll(changes);
+    }
+}
@@ -0,0 +1,27 @@
+package com.xmartin.brand_service.service.converters;
+
+import com.xmartin.brand_service.domain.BrandChange;
+import com.xmartin.brand_service.entity.BrandChangeEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class BrandChangeConverter {
+
+    public BrandChange toBrandChange(BrandChangeEntity changeEntity) {
+        BrandChange change = new BrandChange();
+        change.setSeq(changeEntity.getSeq());
+        change.setBrandId(changeEntity.getBrandId());
+        change.setChangeType(changeEntity.getChangeType());
+        change.setName(changeEntity.getName());
+        change.setWarranty(changeEntity.getWarranty());
+        change.setCountry(changeEntity.getCountry());
+        change.setChangedAt(changeEntity.getChangedAt());
+        return change;
+    }
+
+    public List<BrandChange> toBrandChangeList(List<BrandChangeEntity> changeEntities) {
+        return changeEntities.stream().map(this::toBrandChange).toList();
+    }
+}
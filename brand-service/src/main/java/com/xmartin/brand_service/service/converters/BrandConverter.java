@@ -17,16 +17,23 @@ public class BrandConverter {
         brand.setName(brandEntity.getName());
         brand.setCountry(brandEntity.getCountry());
         brand.setWarranty(brandEntity.getWarranty());
+        brand.setVersion(brandEntity.getVersion());
+        brand.setLastModified(brandEntity.getLastModified());
         return brand;
     }
 
     public BrandEntity toEntity(Brand brand) {
         BrandEntity brandEntity = new BrandEntity();
         brandEntity.setId(brand.getId());
+        updateEntity(brandEntity, brand);
+        return brandEntity;
+    }
+
+    //copia los datos de la marca sobre una entidad ya existente, sin tocar id ni version
+    public void updateEntity(BrandEntity brandEntity, Brand brand) {
         brandEntity.setName(brand.getName());
         brandEntity.setCountry(brand.getCountry());
         brandEntity.setWarranty(brand.getWarranty());
-        return brandEntity;
     }
 
     public List<Brand> toBrandList(List<BrandEntity> brandEntities) {
@@ -1,20 +1,36 @@
 package com.xmartin.brand_service.service.impl;
 
 
-import com.xmartin.brand_service.client.CarClient;
 import com.xmartin.brand_service.domain.Brand;
+import com.xmartin.brand_service.domain.BrandBulkResult;
+import com.xmartin.brand_service.domain.BrandChange;
+import com.xmartin.brand_service.domain.BrandChangeType;
+import com.xmartin.brand_service.domain.BrandUpsertPolicy;
+import com.xmartin.brand_service.domain.OutboxEventType;
+import com.xmartin.brand_service.domain.OutboxStatus;
+import com.xmartin.brand_service.domain.ResourceVersion;
 import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.entity.OutboxEventEntity;
 import com.xmartin.brand_service.exceptions.BrandConflictException;
 import com.xmartin.brand_service.exceptions.BrandNotFoundException;
 import com.xmartin.brand_service.exceptions.FailedToLoadBrandsException;
+import com.xmartin.brand_service.repository.BrandChangeRepository;
 import com.xmartin.brand_service.repository.BrandRepository;
+import com.xmartin.brand_service.repository.OutboxEventRepository;
 import com.xmartin.brand_service.service.BrandService;
+import com.xmartin.brand_service.service.bulk.BrandBulkWriter;
+import com.xmartin.brand_service.service.catalog.BrandCatalog;
+import com.xmartin.brand_service.service.changes.BrandChangeRecorder;
+import com.xmartin.brand_service.service.converters.BrandChangeConverter;
 import com.xmartin.brand_service.service.converters.BrandConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,8 +40,15 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -35,35 +58,72 @@ public class BrandServiceImpl implements BrandService {
 
     private final BrandRepository repository;
     private final BrandConverter brandConverter;
-    private final CarClient carClient;
+    private final OutboxEventRepository outboxRepository;
+    private final BrandCatalog brandCatalog;
+    private final BrandBulkWriter brandBulkWriter;
+    private final BrandChangeRecorder brandChangeRecorder;
+    private final BrandChangeRepository changeRepository;
+    private final BrandChangeConverter brandChangeConverter;
     private static final String[] HEADERS = {"name", "warranty", "country"};
 
+    @Value("${brand-upload.chunk-size:1000}")
+    private int chunkSize;
+
     @Override
     @Transactional
     public Brand addBrand(Brand brand) throws BrandConflictException {
         ensureBrandDoesNotExist(brand.getName());
-        return saveBrand(brand);
+        BrandEntity brandEntity = repository.save(brandConverter.toEntity(brand));
+        brandChangeRecorder.record(brandEntity, BrandChangeType.CREATED);
+        brandCatalog.refreshAfterCommit();
+        return brandConverter.toBrand(brandEntity);
     }
 
+    /*
+    El borrado de los coches de la marca se apunta en outbox_event en esta misma transaccion y lo entrega
+    OutboxRelay despues, sin mantener la transaccion abierta mientras se llama a car-registry.
+     */
     @Override
     @Transactional
     public void deleteBrand(Integer id) throws BrandNotFoundException {
         BrandEntity brandEntity = findBrandEntityById(id);
-        carClient.deleteAllCarsByBrandId(brandEntity.getId());
+        Instant now = Instant.now();
+        outboxRepository.save(OutboxEventEntity.builder()
+                .eventType(OutboxEventType.DELETE_CARS_BY_BRAND)
+                .aggregateId(brandEntity.getId())
+                .status(OutboxStatus.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+        brandChangeRecorder.record(brandEntity, BrandChangeType.DELETED);
         repository.delete(brandEntity);
+        brandCatalog.refreshAfterCommit();
     }
 
     @Override
     @Transactional
     public Brand updateBrand(Brand brand, Integer id) throws BrandNotFoundException {
-        findBrandEntityById(id);
-        return saveBrand(brand, id);
+        //se actualiza la entidad cargada para que Hibernate compruebe e incremente la version
+        BrandEntity brandEntity = findBrandEntityById(id);
+        brandConverter.updateEntity(brandEntity, brand);
+        Brand updatedBrand = brandConverter.toBrand(repository.saveAndFlush(brandEntity));
+        brandChangeRecorder.record(brandEntity, BrandChangeType.UPDATED);
+        brandCatalog.refreshAfterCommit();
+        return updatedBrand;
     }
 
+    /*
+    Las lecturas se sirven desde el catalogo en memoria (ver BrandCatalog), sin consultas a la bbdd.
+     */
     @Override
     @Async
     public CompletableFuture<List<Brand>> getBrands() {
-        return CompletableFuture.completedFuture(brandConverter.toBrandList(repository.findAll()));
+        return CompletableFuture.completedFuture(brandCatalog.findAll());
+    }
+
+    @Override
+    public ResourceVersion getBrandsVersion() {
+        return brandCatalog.getVersion();
     }
 
     @Override
@@ -77,25 +137,91 @@ public class BrandServiceImpl implements BrandService {
     }
 
     @Override
+    public List<Brand> getBrandsByIds(List<Integer> ids) {
+        return new HashSet<>(ids).stream()
+                .map(brandCatalog::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public List<Brand> getBrandsByNames(List<String> names) {
+        return names.stream()
+                .filter(Objects::nonNull)
+                .map(BrandCatalog::normalize)
+                .distinct()
+                .map(brandCatalog::findByName)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /*
+    Cambios de marcas posteriores a since, en orden. Cada cambio lleva el estado de la marca, asi que el cliente
+    puede aplicarlos sin volver a pedir la marca; el seq del ultimo es el since de la siguiente llamada.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BrandChange> getChanges(long since, int limit) {
+        return brandChangeConverter.toBrandChangeList(
+                changeRepository.findAllBySeqGreaterThanOrderBySeqAsc(since, Limit.of(limit)));
+    }
+
+    @Override
+    public BrandBulkResult bulkUpsertBrands(List<Brand> brands, BrandUpsertPolicy policy) {
+        BrandBulkResult result = brandBulkWriter.upsert(brands, policy);
+        if (result.getCreated() > 0 || result.getUpdated() > 0) {
+            brandCatalog.refresh();
+        }
+        return result;
+    }
+
+    /*
+    Los duplicados dentro del propio fichero se detectan en memoria y los que ya existen en la bbdd con una sola
+    consulta IN por bloque de chunkSize filas, en lugar de una consulta por fila. Si hay algun conflicto no se
+    guarda ninguna marca.
+     */
+    @Override
+    @Transactional(rollbackFor = {BrandConflictException.class, FailedToLoadBrandsException.class})
     public List<Brand> uploadBrands(MultipartFile file) throws BrandConflictException, FailedToLoadBrandsException {
         List<BrandEntity> brandEntityList = new ArrayList<>();
+        Set<String> namesInFile = new HashSet<>();
+        Map<String, String> chunkNames = new HashMap<>();
 
         try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
              CSVParser csvParser = new CSVParser(fileReader, CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
 
-            for (CSVRecord csvRecord : csvParser.getRecords()) {
-                ensureBrandDoesNotExist(csvRecord.get("name"));
+            for (CSVRecord csvRecord : csvParser) {
+                String name = csvRecord.get("name");
+                String normalizedName = BrandCatalog.normalize(name);
+                if (!namesInFile.add(normalizedName)) {
+                    throw new BrandConflictException("Brand with name " + name + " is duplicated in the file.");
+                }
+                chunkNames.put(normalizedName, name);
 
                 BrandEntity brandEntity = BrandEntity.builder()
-                        .name(csvRecord.get("name"))
+                        .name(name)
                         .warranty(Integer.valueOf(csvRecord.get("warranty")))
                         .country(csvRecord.get("country"))
                         .build();
 
                 brandEntityList.add(brandEntity);
+
+                if (chunkNames.size() >= chunkSize) {
+                    ensureBrandsDoNotExist(chunkNames);
+                    chunkNames.clear();
+                }
             }
+            ensureBrandsDoNotExist(chunkNames);
 
-            return brandConverter.toBrandList(repository.saveAll(brandEntityList));
+            //la subida es todo o nada: un unico saveAll en la transaccion, los bloques solo acotan las consultas
+            List<BrandEntity> savedEntities = repository.saveAll(brandEntityList);
+            brandChangeRecorder.record(savedEntities, BrandChangeType.CREATED);
+            List<Brand> savedBrands = brandConverter.toBrandList(savedEntities);
+            brandCatalog.refreshAfterCommit();
+            return savedBrands;
+        } catch (DataIntegrityViolationException e) {
+            //otra peticion ha creado alguna de las marcas entre la comprobacion y el insert
+            throw new BrandConflictException("Some brands in the file already exist.");
         } catch (IOException e) {
             log.error("Failed to upload brands", e);
             throw new FailedToLoadBrandsException("Failed to load brands from CSV");
@@ -117,34 +243,32 @@ public class BrandServiceImpl implements BrandService {
     // Métodos auxiliares privados
 
     private void ensureBrandDoesNotExist(String name) throws BrandConflictException {
-        if (repository.findByNameIgnoreCase(name).isPresent()) {
+        if (repository.existsByNameNormalized(BrandCatalog.normalize(name))) {
             throw new BrandConflictException("Brand with name " + name + " already exists.");
         }
     }
 
+    //recibe los nombres normalizados junto al nombre original, para el mensaje de error
+    private void ensureBrandsDoNotExist(Map<String, String> names) throws BrandConflictException {
+        if (names.isEmpty()) return;
+        List<BrandEntity> existing = repository.findAllByNameNormalizedIn(names.keySet());
+        if (!existing.isEmpty()) {
+            throw new BrandConflictException("Brand with name " + names.get(existing.get(0).getNameNormalized()) + " already exists.");
+        }
+    }
+
     private BrandEntity findBrandEntityById(Integer id) throws BrandNotFoundException {
         return repository.findById(id)
                 .orElseThrow(() -> new BrandNotFoundException("Brand with ID " + id + " was not found"));
     }
 
     private Brand findBrandById(Integer id) throws BrandNotFoundException {
-        return repository.findById(id).map(brandConverter::toBrand)
+        return brandCatalog.findById(id)
                 .orElseThrow(() -> new BrandNotFoundException("Brand with ID " + id + " was not found"));
     }
 
     private Brand findBrandByName(String name) throws BrandNotFoundException {
-        return repository.findByNameIgnoreCase(name).map(brandConverter::toBrand)
+        return brandCatalog.findByName(name)
                 .orElseThrow(() -> new BrandNotFoundException("Brand with name: " + name + " was not found"));
     }
-
-    private Brand saveBrand(Brand brand) {
-        BrandEntity brandEntity = brandConverter.toEntity(brand);
-        return brandConverter.toBrand(repository.save(brandEntity));
-    }
-
-    private Brand saveBrand(Brand brand, Integer id) {
-        BrandEntity brandEntity = brandConverter.toEntity(brand);
-        brandEntity.setId(id);
-        return brandConverter.toBrand(repository.save(brandEntity));
-    }
 }
@@ -0,0 +1,174 @@
+package com.xmartin.brand_service.service.outbox;
+
+import com.xmartin.brand_service.client.CarClient;
+import com.xmartin.brand_service.domain.OutboxEventType;
+import com.xmartin.brand_service.domain.OutboxStatus;
+import com.xmartin.brand_service.entity.OutboxEventEntity;
+import com.xmartin.brand_service.repository.OutboxEventRepository;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+Entrega en segundo plano los eventos de la tabla outbox_event. Se escriben en la misma transaccion que el cambio
+que los provoca (por ejemplo el borrado de una marca), asi que ninguna peticion espera a car-registry.
+Los eventos pendientes se envian por lotes en una sola llamada. Si car-registry no esta disponible (conexion, 5xx,
+408 o 429) el lote se reintenta sin limite, con espera exponencial hasta backoffMax: la marca ya esta borrada y
+descartar el evento dejaria sus coches huerfanos. Si rechaza el lote (4xx) se reparte marca a marca, para que un
+evento malo no arrastre a los demas, y solo el que se rechaza suma un rechazo; al llegar a maxAttempts queda como
+DEAD, se avisa en el log y se puede volver a poner en cola con requeueDead.
+La entrega es al menos una vez: car-registry procesa los borrados de forma idempotente, asi que repetir un lote (o
+que dos instancias lo envien) no tiene efecto.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final CarClient carClient;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       CarClient carClient,
+                       @Value("${outbox.batch-size:100}") int batchSize,
+                       @Value("${outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.backoff-base:1s}") Duration backoffBase,
+                       @Value("${outbox.backoff-max:5m}") Duration backoffMax) {
+        this.outboxRepository = outboxRepository;
+        this.carClient = carClient;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void relay() {
+        List<OutboxEventEntity> events;
+        do {
+            events = outboxRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    OutboxStatus.PENDING, Instant.now(), Limit.of(batchSize));
+            if (events.isEmpty()) return;
+        } while (deliver(events) && events.size() == batchSize);
+    }
+
+    //mientras queden eventos DEAD se repite el aviso, para que no se pierda entre los logs
+    @Scheduled(fixedDelayString = "${outbox.dead-report-interval-ms:600000}")
+    public void reportDead() {
+        long dead = outboxRepository.countByStatus(OutboxStatus.DEAD);
+        if (dead > 0) {
+            log.error("{} outbox events are DEAD; fix the cause and requeue them with POST /brands/outbox/dead/retry", dead);
+        }
+    }
+
+    public long countDead() {
+        return outboxRepository.countByStatus(OutboxStatus.DEAD);
+    }
+
+    public int requeueDead() {
+        int requeued = outboxRepository.requeueDead(Instant.now());
+        log.info("Requeued {} DEAD outbox events", requeued);
+        return requeued;
+    }
+
+    // Métodos auxiliares privados
+
+    //devuelve true si el lote se ha entregado entero, para seguir con el siguiente sin esperar al proximo ciclo
+    private boolean deliver(List<OutboxEventEntity> events) {
+        Map<Integer, List<OutboxEventEntity>> eventsByBrand = events.stream()
+                .filter(event -> event.getEventType() == OutboxEventType.DELETE_CARS_BY_BRAND)
+                .collect(Collectors.groupingBy(OutboxEventEntity::getAggregateId, LinkedHashMap::new, Collectors.toList()));
+
+        boolean delivered = true;
+        try {
+            if (!eventsByBrand.isEmpty()) {
+                carClient.deleteAllCarsByBrandIds(List.copyOf(eventsByBrand.keySet()));
+            }
+            markDone(events);
+        } catch (Exception e) {
+            if (isRejection(e) && eventsByBrand.size() > 1) {
+                log.warn("car-registry rejected a batch of {} brands, delivering them one by one", eventsByBrand.size(), e);
+                delivered = deliverOneByOne(events, eventsByBrand);
+            } else {
+                log.warn("Failed to deliver {} outbox events", events.size(), e);
+                events.forEach(event -> scheduleRetry(event, e));
+                delivered = false;
+            }
+        }
+        outboxRepository.saveAll(events);
+        return delivered;
+    }
+
+    private boolean deliverOneByOne(List<OutboxEventEntity> events, Map<Integer, List<OutboxEventEntity>> eventsByBrand) {
+        boolean delivered = true;
+        //los que no son de ninguna marca no dependen de la llamada
+        markDone(events.stream().filter(event -> event.getEventType() != OutboxEventType.DELETE_CARS_BY_BRAND).toList());
+        for (Map.Entry<Integer, List<OutboxEventEntity>> brand : eventsByBrand.entrySet()) {
+            try {
+                carClient.deleteAllCarsByBrandIds(List.of(brand.getKey()));
+                markDone(brand.getValue());
+            } catch (Exception e) {
+                log.warn("Failed to deliver outbox events of brand {}", brand.getKey(), e);
+                brand.getValue().forEach(event -> scheduleRetry(event, e));
+                delivered = false;
+            }
+        }
+        return delivered;
+    }
+
+    private static void markDone(List<OutboxEventEntity> events) {
+        Instant now = Instant.now();
+        events.forEach(event -> {
+            event.setStatus(OutboxStatus.DONE);
+            event.setProcessedAt(now);
+            event.setLastError(null);
+        });
+    }
+
+    private void scheduleRetry(OutboxEventEntity event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(e.getMessage()));
+
+        if (isRejection(e)) {
+            event.setRejections(event.getRejections() + 1);
+            if (event.getRejections() >= maxAttempts) {
+                log.error("Outbox event {} ({} {}) is DEAD after {} rejections", event.getId(), event.getEventType(),
+                        event.getAggregateId(), event.getRejections());
+                event.setStatus(OutboxStatus.DEAD);
+                return;
+            }
+        }
+
+        //1s, 2s, 4s... hasta backoffMax, donde se queda mientras siga fallando
+        long delayMillis = backoffBase.toMillis() << Math.min(attempts - 1, 20);
+        event.setNextAttemptAt(Instant.now().plusMillis(Math.min(delayMillis, backoffMax.toMillis())));
+    }
+
+    //car-registry ha respondido que la peticion no es valida; repetirla igual no va a cambiar nada
+    private static boolean isRejection(Exception e) {
+        if (!(e instanceof FeignException feignException)) return false;
+        int status = feignException.status();
+        return status >= 400 && status < 500
+                && status != HttpStatus.REQUEST_TIMEOUT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,128 @@
+package com.xmartin.brand_service.service.bulk;
+
+import com.xmartin.brand_service.domain.Brand;
+import com.xmartin.brand_service.domain.BrandBulkItemResult;
+import com.xmartin.brand_service.domain.BrandBulkOutcome;
+import com.xmartin.brand_service.domain.BrandBulkResult;
+import com.xmartin.brand_service.domain.BrandUpsertPolicy;
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.repository.BrandRepository;
+import com.xmartin.brand_service.service.changes.BrandChangeRecorder;
+import com.xmartin.brand_service.service.converters.BrandConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BrandBulkWriterTest {
+
+    private final BrandRepository repository = mock(BrandRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final BrandBulkWriter writer = new BrandBulkWriter(repository, new BrandConverter(),
+            mock(BrandChangeRecorder.class), transactionManager, 2);
+
+    private final List<BrandEntity> stored = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        stored.add(entity(1, "Seat"));
+        when(repository.findAllByNameNormalizedIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            return stored.stream().filter(brandEntity -> names.contains(brandEntity.getNameNormalized())).toList();
+        });
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<BrandEntity> brandEntities = invocation.getArgument(0);
+            brandEntities.forEach(brandEntity -> brandEntity.setId(100 + brandEntities.indexOf(brandEntity)));
+            return brandEntities;
+        });
+    }
+
+    @Test
+    void skipLeavesExistingBrandsUntouched() {
+        BrandBulkResult result = writer.upsert(List.of(brand("SEAT", 5), brand("Audi", 3)), BrandUpsertPolicy.SKIP);
+
+        assertEquals(List.of(BrandBulkOutcome.SKIPPED, BrandBulkOutcome.CREATED), outcomes(result));
+        assertEquals(1, result.getItems().get(0).getId());
+        assertEquals(2, stored.get(0).getWarranty());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getSkipped());
+    }
+
+    @Test
+    void updateOverwritesExistingBrands() {
+        BrandBulkResult result = writer.upsert(List.of(brand(" seat ", 5), brand("Audi", 3)), BrandUpsertPolicy.UPDATE);
+
+        assertEquals(List.of(BrandBulkOutcome.UPDATED, BrandBulkOutcome.CREATED), outcomes(result));
+        assertEquals(5, stored.get(0).getWarranty());
+        assertEquals(1, result.getUpdated());
+    }
+
+    @Test
+    void failWritesNothingWhenAnyBrandConflicts() {
+        BrandBulkResult result = writer.upsert(List.of(brand("Audi", 3), brand("Kia", 7), brand("Seat", 5)), BrandUpsertPolicy.FAIL);
+
+        assertTrue(result.isAborted());
+        assertEquals(List.of(BrandBulkOutcome.SKIPPED, BrandBulkOutcome.SKIPPED, BrandBulkOutcome.CONFLICT), outcomes(result));
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void failWritesEverythingWhenThereAreNoConflicts() {
+        BrandBulkResult result = writer.upsert(List.of(brand("Audi", 3), brand("Kia", 7)), BrandUpsertPolicy.FAIL);
+
+        assertFalse(result.isAborted());
+        assertEquals(2, result.getCreated());
+    }
+
+    @Test
+    void invalidItemsAreReportedWithoutStoppingTheOthers() {
+        List<Brand> brands = new ArrayList<>(List.of(brand("Audi", 3), brand(" ", 1), brand("AUDI", 4)));
+
+        BrandBulkResult result = writer.upsert(brands, BrandUpsertPolicy.SKIP);
+
+        assertEquals(List.of(BrandBulkOutcome.CREATED, BrandBulkOutcome.INVALID, BrandBulkOutcome.INVALID), outcomes(result));
+        assertEquals("Duplicated in request", result.getItems().get(2).getMessage());
+        assertEquals(2, result.getFailed());
+    }
+
+    @Test
+    void chunkThatFailsToWriteIsRolledBackAndReportedAsFailed() {
+        when(repository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BrandBulkResult result = writer.upsert(List.of(brand("Audi", 3), brand("Kia", 7), brand("Fiat", 2)), BrandUpsertPolicy.SKIP);
+
+        assertEquals(List.of(BrandBulkOutcome.FAILED, BrandBulkOutcome.FAILED, BrandBulkOutcome.CREATED), outcomes(result));
+        verify(transactionManager).rollback(any());
+    }
+
+    // Métodos auxiliares privados
+
+    private static List<BrandBulkOutcome> outcomes(BrandBulkResult result) {
+        return result.getItems().stream().map(BrandBulkItemResult::getOutcome).toList();
+    }
+
+    private static Brand brand(String name, int warranty) {
+        return Brand.builder().name(name).warranty(warranty).country("ES").build();
+    }
+
+    private static BrandEntity entity(int id, String name) {
+        return BrandEntity.builder().id(id).name(name).nameNormalized(name.toLowerCase()).warranty(2).country("ES").build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.xmartin.brand_service.service.catalog;
+
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.repository.BrandRepository;
+import com.xmartin.brand_service.service.converters.BrandConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BrandCatalogTest {
+
+    private final BrandRepository repository = mock(BrandRepository.class);
+    private final BrandCatalog catalog = new BrandCatalog(repository, new BrandConverter());
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readsAreServedFromOneLazilyLoadedSnapshot() {
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(brand(1, "Seat", 0L), brand(2, "Audi", 0L)));
+
+        assertEquals("Seat", catalog.findById(1).orElseThrow().getName());
+        assertEquals(2, catalog.findByName("  AUDI ").orElseThrow().getId());
+        assertTrue(catalog.findById(3).isEmpty());
+        assertEquals(2, catalog.findAll().size());
+
+        verify(repository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void versionChangesWhenABrandChanges() {
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(brand(1, "Seat", 0L)));
+        String before = catalog.getVersion().getTag();
+
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(brand(1, "Seat", 1L)));
+        catalog.refresh();
+
+        assertNotEquals(before, catalog.getVersion().getTag());
+    }
+
+    @Test
+    void refreshAfterCommitWaitsForTheCommit() {
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(brand(1, "Seat", 0L)));
+        catalog.refresh();
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(brand(1, "Seat", 0L), brand(2, "Audi", 0L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        catalog.refreshAfterCommit();
+        assertTrue(catalog.findById(2).isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals("Audi", catalog.findById(2).orElseThrow().getName());
+    }
+
+    // Métodos auxiliares privados
+
+    private static BrandEntity brand(int id, String name, long version) {
+        return BrandEntity.builder().id(id).name(name).version(version).lastModified(Instant.EPOCH).build();
+    }
+}
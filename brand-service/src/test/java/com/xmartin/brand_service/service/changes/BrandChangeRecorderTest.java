@@ -0,0 +1,106 @@
+package com.xmartin.brand_service.service.changes;
+
+import com.xmartin.brand_service.domain.BrandChangeType;
+import com.xmartin.brand_service.entity.BrandChangeEntity;
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.repository.BrandChangeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+Reserva numeros de secuencia desde varias transacciones a la vez contra un MySQL de pruebas
+(BRAND_SERVICE_TEST_DB_URL, y opcionalmente _USER y _PASSWORD) y comprueba que no se repite ni se salta ninguno.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BrandChangeRecorder.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "BRAND_SERVICE_TEST_DB_URL", matches = ".+")
+class BrandChangeRecorderTest {
+
+    private static final int THREADS = 8;
+    private static final int RECORDS_PER_THREAD = 25;
+
+    @Autowired
+    private BrandChangeRecorder recorder;
+    @Autowired
+    private BrandChangeRepository changeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("BRAND_SERVICE_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("BRAND_SERVICE_TEST_DB_USER", "root"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("BRAND_SERVICE_TEST_DB_PASSWORD", ""));
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+    }
+
+    @Test
+    void concurrentTransactionsGetConsecutiveNonOverlappingSeqs() throws Exception {
+        long start = lastSeq();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                //cada transaccion graba lotes de distinto tamaño: 1, 2, 3...
+                int batch = t + 1;
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    for (int i = 0; i < RECORDS_PER_THREAD; i += batch) {
+                        List<BrandEntity> brands = brands(Math.min(batch, RECORDS_PER_THREAD - i));
+                        transactionTemplate.executeWithoutResult(status -> recorder.record(brands, BrandChangeType.UPDATED));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> seqs = changeRepository.findAllBySeqGreaterThanOrderBySeqAsc(start, Limit.unlimited()).stream()
+                .map(BrandChangeEntity::getSeq)
+                .toList();
+        assertEquals(LongStream.rangeClosed(start + 1, start + THREADS * RECORDS_PER_THREAD).boxed().toList(), seqs);
+    }
+
+    // Métodos auxiliares privados
+
+    private long lastSeq() {
+        return changeRepository.findAll().stream().mapToLong(BrandChangeEntity::getSeq).max().orElse(0L);
+    }
+
+    private static List<BrandEntity> brands(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> BrandEntity.builder().id(1).name("Seat").warranty(2).country("ES").build())
+                .toList();
+    }
+}
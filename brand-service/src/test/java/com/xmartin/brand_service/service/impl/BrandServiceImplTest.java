@@ -0,0 +1,94 @@
+package com.xmartin.brand_service.service.impl;
+
+import com.xmartin.brand_service.entity.BrandEntity;
+import com.xmartin.brand_service.exceptions.BrandConflictException;
+import com.xmartin.brand_service.repository.BrandChangeRepository;
+import com.xmartin.brand_service.repository.BrandRepository;
+import com.xmartin.brand_service.repository.OutboxEventRepository;
+import com.xmartin.brand_service.service.bulk.BrandBulkWriter;
+import com.xmartin.brand_service.service.catalog.BrandCatalog;
+import com.xmartin.brand_service.service.changes.BrandChangeRecorder;
+import com.xmartin.brand_service.service.converters.BrandChangeConverter;
+import com.xmartin.brand_service.service.converters.BrandConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BrandServiceImplTest {
+
+    private final BrandRepository repository = mock(BrandRepository.class);
+    private final BrandServiceImpl brandService = new BrandServiceImpl(repository, new BrandConverter(),
+            mock(OutboxEventRepository.class), mock(BrandCatalog.class), mock(BrandBulkWriter.class),
+            mock(BrandChangeRecorder.class), mock(BrandChangeRepository.class), mock(BrandChangeConverter.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(brandService, "chunkSize", 2);
+        when(repository.findAllByNameNormalizedIn(anyCollection())).thenReturn(List.of());
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void existingNamesAreCheckedWithOneQueryPerChunk() throws Exception {
+        //el servicio reutiliza el mapa de nombres entre bloques, asi que se copian al vuelo
+        List<Set<String>> queried = new ArrayList<>();
+        when(repository.findAllByNameNormalizedIn(anyCollection())).thenAnswer(invocation -> {
+            queried.add(new HashSet<>(invocation.<Collection<String>>getArgument(0)));
+            return List.of();
+        });
+
+        List<?> saved = brandService.uploadBrands(csv("Seat,1,ES", "Audi,2,DE", "BMW,3,DE", "Kia,4,KR", "Fiat,5,IT"));
+
+        assertEquals(5, saved.size());
+        assertEquals(List.of(Set.of("seat", "audi"), Set.of("bmw", "kia"), Set.of("fiat")), queried);
+        verify(repository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void namesRepeatedInTheFileIgnoringCaseAndSpacesAreRejected() {
+        BrandConflictException e = assertThrows(BrandConflictException.class,
+                () -> brandService.uploadBrands(csv("Seat,1,ES", "Audi,2,DE", "\" SEAT\",3,ES")));
+
+        assertTrue(e.getMessage().contains("SEAT"));
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void nameThatAlreadyExistsIsReportedWithItsSpellingInTheFile() {
+        when(repository.findAllByNameNormalizedIn(Set.of("seat", "audi")))
+                .thenReturn(List.of(BrandEntity.builder().id(1).name("Audi").nameNormalized("audi").build()));
+
+        BrandConflictException e = assertThrows(BrandConflictException.class,
+                () -> brandService.uploadBrands(csv("Seat,1,ES", "AUDI,2,DE")));
+
+        assertEquals("Brand with name AUDI already exists.", e.getMessage());
+        verify(repository, never()).saveAll(any());
+    }
+
+    // Métodos auxiliares privados
+
+    private static MockMultipartFile csv(String... rows) {
+        String content = "name,warranty,country\n" + String.join("\n", rows) + "\n";
+        return new MockMultipartFile("file", "brands.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
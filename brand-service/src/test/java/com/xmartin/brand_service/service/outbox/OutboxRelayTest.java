@@ -0,0 +1,154 @@
+package com.xmartin.brand_service.service.outbox;
+
+import com.xmartin.brand_service.client.CarClient;
+import com.xmartin.brand_service.domain.OutboxEventType;
+import com.xmartin.brand_service.domain.OutboxStatus;
+import com.xmartin.brand_service.entity.OutboxEventEntity;
+import com.xmartin.brand_service.repository.OutboxEventRepository;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxRepository = mock(OutboxEventRepository.class);
+    private final CarClient carClient = mock(CarClient.class);
+    private final OutboxRelay relay = new OutboxRelay(outboxRepository, carClient, 2, 3,
+            Duration.ofSeconds(1), Duration.ofSeconds(3));
+
+    @Test
+    void pendingEventsAreSentInOneCallPerBatch() {
+        OutboxEventEntity first = event(1L, 7);
+        OutboxEventEntity second = event(2L, 7);
+        OutboxEventEntity third = event(3L, 9);
+        when(outboxRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(OutboxStatus.PENDING), any(), any(Limit.class)))
+                .thenReturn(List.of(first, second), List.of(third));
+
+        relay.relay();
+
+        verify(carClient).deleteAllCarsByBrandIds(List.of(7));
+        verify(carClient).deleteAllCarsByBrandIds(List.of(9));
+        assertEquals(OutboxStatus.DONE, first.getStatus());
+        assertEquals(OutboxStatus.DONE, third.getStatus());
+        assertNotNull(third.getProcessedAt());
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithExponentialBackoff() {
+        OutboxEventEntity event = event(1L, 7);
+        when(outboxRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(OutboxStatus.PENDING), any(), any(Limit.class)))
+                .thenReturn(List.of(event));
+        doThrow(new RuntimeException("car-registry unavailable")).when(carClient).deleteAllCarsByBrandIds(anyList());
+
+        Instant before = Instant.now();
+        relay.relay();
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals("car-registry unavailable", event.getLastError());
+        assertTrue(event.getNextAttemptAt().isAfter(before.plusMillis(900)));
+
+        relay.relay();
+        //el segundo intento espera el doble
+        assertTrue(event.getNextAttemptAt().isAfter(before.plusMillis(1900)));
+        verify(carClient, times(2)).deleteAllCarsByBrandIds(List.of(7));
+    }
+
+    @Test
+    void unavailableCarRegistryIsRetriedForeverAtTheMaximumBackoff() {
+        OutboxEventEntity event = event(1L, 7);
+        event.setAttempts(50);
+        when(outboxRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(OutboxStatus.PENDING), any(), any(Limit.class)))
+                .thenReturn(List.of(event));
+        doThrow(feignError(HttpStatus.SERVICE_UNAVAILABLE)).when(carClient).deleteAllCarsByBrandIds(anyList());
+
+        Instant before = Instant.now();
+        relay.relay();
+
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertEquals(0, event.getRejections());
+        assertTrue(event.getNextAttemptAt().isBefore(before.plusSeconds(4)));
+    }
+
+    @Test
+    void eventIsDeadAfterMaxRejections() {
+        OutboxEventEntity event = event(1L, 7);
+        event.setRejections(2);
+        when(outboxRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(OutboxStatus.PENDING), any(), any(Limit.class)))
+                .thenReturn(List.of(event));
+        doThrow(feignError(HttpStatus.BAD_REQUEST)).when(carClient).deleteAllCarsByBrandIds(anyList());
+
+        relay.relay();
+
+        assertEquals(OutboxStatus.DEAD, event.getStatus());
+        assertEquals(3, event.getRejections());
+    }
+
+    @Test
+    void rejectedBatchIsSplitSoOnlyThePoisonEventFails() {
+        OutboxEventEntity healthy = event(1L, 7);
+        OutboxEventEntity poison = event(2L, 9);
+        when(outboxRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(OutboxStatus.PENDING), any(), any(Limit.class)))
+                .thenReturn(List.of(healthy, poison), List.of());
+        doThrow(feignError(HttpStatus.BAD_REQUEST)).when(carClient).deleteAllCarsByBrandIds(List.of(7, 9));
+        doThrow(feignError(HttpStatus.BAD_REQUEST)).when(carClient).deleteAllCarsByBrandIds(List.of(9));
+
+        relay.relay();
+
+        verify(carClient).deleteAllCarsByBrandIds(List.of(7));
+        assertEquals(OutboxStatus.DONE, healthy.getStatus());
+        assertEquals(0, healthy.getRejections());
+        assertEquals(OutboxStatus.PENDING, poison.getStatus());
+        assertEquals(1, poison.getRejections());
+    }
+
+    @Test
+    void deadEventsCanBeRequeued() {
+        when(outboxRepository.requeueDead(any())).thenReturn(4);
+
+        assertEquals(4, relay.requeueDead());
+    }
+
+    // Métodos auxiliares privados
+
+    private static FeignException feignError(HttpStatus status) {
+        Request request = Request.create(Request.HttpMethod.POST, "http://car-registry/cars/brand/delete-batch",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("CarClient#deleteAllCarsByBrandIds(List)", Response.builder()
+                .status(status.value())
+                .reason(status.getReasonPhrase())
+                .request(request)
+                .headers(Map.of())
+                .build());
+    }
+
+    private static OutboxEventEntity event(Long id, Integer brandId) {
+        return OutboxEventEntity.builder()
+                .id(id)
+                .eventType(OutboxEventType.DELETE_CARS_BY_BRAND)
+                .aggregateId(brandId)
+                .status(OutboxStatus.PENDING)
+                .nextAttemptAt(Instant.EPOCH)
+                .build();
+    }
+}
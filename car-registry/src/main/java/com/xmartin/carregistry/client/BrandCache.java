@@ -0,0 +1,192 @@
+package com.xmartin.carregistry.client;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.xmartin.carregistry.domain.Brand;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+Cache local de marcas delante de BrandClient. Mantiene dos indices (por id y por nombre sin distinguir
+mayusculas), ambos acotados y con TTL. Las entradas se refrescan en segundo plano y las marcas que no existen
+se guardan un tiempo mas corto para no preguntar a brand-service una y otra vez por el mismo nombre.
+Cada marca cargada por un indice se copia al otro despues de que get/getAll haya devuelto, nunca desde dentro
+de un loader: el loader se ejecuta con la entrada bloqueada y escribir en la otra cache desde ahi podria
+interbloquearse con una carga simultanea de la misma marca por la otra clave.
+ */
+@Component
+public class BrandCache {
+
+    private final BrandClient brandClient;
+    private final LoadingCache<Integer, Optional<Brand>> brandsById;
+    private final LoadingCache<String, Optional<Brand>> brandsByName;
+
+    public BrandCache(BrandClient brandClient,
+                      MeterRegistry meterRegistry,
+                      @Value("${brand-cache.maximum-size:10000}") long maximumSize,
+                      @Value("${brand-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                      @Value("${brand-cache.refresh-after-write:1m}") Duration refreshAfterWrite,
+                      @Value("${brand-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.brandClient = brandClient;
+
+        this.brandsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new BrandExpiry<Integer>(expireAfterWrite, negativeTtl))
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<Brand> load(Integer id) {
+                        return loadById(id);
+                    }
+
+                    @Override
+                    public Map<Integer, Optional<Brand>> loadAll(Set<? extends Integer> ids) {
+                        return loadAllById(ids);
+                    }
+                });
+
+        this.brandsByName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new BrandExpiry<String>(expireAfterWrite, negativeTtl))
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<Brand> load(String name) {
+                        return loadByName(name);
+                    }
+
+                    @Override
+                    public Map<String, Optional<Brand>> loadAll(Set<? extends String> names) {
+                        return loadAllByName(names);
+                    }
+                });
+
+        CaffeineCacheMetrics.monitor(meterRegistry, brandsById, "brandsById");
+        CaffeineCacheMetrics.monitor(meterRegistry, brandsByName, "brandsByName");
+    }
+
+    public Optional<Brand> getBrandById(Integer id) {
+        Optional<Brand> brand = brandsById.get(id);
+        brand.ifPresent(this::warmByName);
+        return brand;
+    }
+
+    public Optional<Brand> getBrandByName(String name) {
+        Optional<Brand> brand = brandsByName.get(normalize(name));
+        brand.ifPresent(this::warmById);
+        return brand;
+    }
+
+    //devuelve solo las marcas encontradas, indexadas por id
+    public Map<Integer, Brand> getBrandsById(Collection<Integer> ids) {
+        Map<Integer, Brand> brands = present(brandsById.getAll(ids));
+        brands.values().forEach(this::warmByName);
+        return brands;
+    }
+
+    //devuelve solo las marcas encontradas, indexadas por nombre normalizado (ver normalize)
+    public Map<String, Brand> getBrandsByName(Collection<String> names) {
+        Map<String, Brand> brands = present(brandsByName.getAll(names.stream().map(BrandCache::normalize).collect(Collectors.toSet())));
+        brands.values().forEach(this::warmById);
+        return brands;
+    }
+
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Carga desde brand-service
+
+    private Optional<Brand> loadById(Integer id) {
+        try {
+            return brandClient.getBrandById(id);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Brand> loadByName(String name) {
+        try {
+            return brandClient.getBrandByName(name);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    /*
+    Los fallos de varias claves a la vez se resuelven con una sola llamada a los endpoints batch de brand-service.
+    Las claves que no vuelven se guardan como ausentes (cache negativa).
+     */
+    private Map<Integer, Optional<Brand>> loadAllById(Set<? extends Integer> ids) {
+        Map<Integer, Optional<Brand>> result = new HashMap<>();
+        for (Brand brand : orEmpty(brandClient.getBrandsByIds(List.copyOf(ids)))) {
+            result.put(brand.getId(), Optional.of(brand));
+        }
+        ids.forEach(id -> result.putIfAbsent(id, Optional.empty()));
+        return result;
+    }
+
+    private Map<String, Optional<Brand>> loadAllByName(Set<? extends String> names) {
+        Map<String, Optional<Brand>> result = new HashMap<>();
+        for (Brand brand : orEmpty(brandClient.getBrandsByNames(List.copyOf(names)))) {
+            result.put(normalize(brand.getName()), Optional.of(brand));
+        }
+        names.forEach(name -> result.putIfAbsent(name, Optional.empty()));
+        return result;
+    }
+
+    //solo rellena el otro indice si no tiene ya la marca, para no reiniciar su TTL en cada lectura
+    private void warmByName(Brand brand) {
+        brandsByName.asMap().putIfAbsent(normalize(brand.getName()), Optional.of(brand));
+    }
+
+    private void warmById(Brand brand) {
+        brandsById.asMap().putIfAbsent(brand.getId(), Optional.of(brand));
+    }
+
+    private static List<Brand> orEmpty(List<Brand> brands) {
+        return brands == null ? List.of() : brands;
+    }
+
+    private static <K> Map<K, Brand> present(Map<K, Optional<Brand>> entries) {
+        Map<K, Brand> result = new HashMap<>();
+        entries.forEach((key, brand) -> brand.ifPresent(b -> result.put(key, b)));
+        return result;
+    }
+
+    //las marcas encontradas viven expireAfterWrite, las que no existen solo negativeTtl
+    private record BrandExpiry<K>(Duration ttl, Duration negativeTtl) implements Expiry<K, Optional<Brand>> {
+
+        @Override
+        public long expireAfterCreate(K key, Optional<Brand> value, long currentTime) {
+            return (value.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Optional<Brand> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Optional<Brand> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
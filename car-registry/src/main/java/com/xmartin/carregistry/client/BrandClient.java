@@ -5,7 +5,11 @@ import com.xmartin.carregistry.domain.Brand;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,5 +25,11 @@ public interface BrandClient {
     @GetMapping("/brands")
     public List<Brand> getAllBrands();
 
+    @GetMapping("/brands/batch")
+    public List<Brand> getBrandsByIds(@RequestParam("ids") Collection<Integer> ids);
+
+    @PostMapping("/brands/batch/by-name")
+    public List<Brand> getBrandsByNames(@RequestBody Collection<String> names);
+
 
 }
@@ -4,25 +4,39 @@ package com.xmartin.carregistry.controller;
 import com.xmartin.carregistry.controller.dtos.CarListResponse;
 import com.xmartin.carregistry.controller.dtos.CarRequest;
 import com.xmartin.carregistry.controller.dtos.CarResponse;
+import com.xmartin.carregistry.controller.dtos.CarSummaryListResponse;
+import com.xmartin.carregistry.controller.dtos.CarSummaryResponse;
 import com.xmartin.carregistry.controller.mappers.CarMapper;
+import com.xmartin.carregistry.domain.CarSearchCriteria;
+import com.xmartin.carregistry.domain.CarStatsDimension;
+import com.xmartin.carregistry.domain.ResourceVersion;
 import com.xmartin.carregistry.exceptions.BrandNotFoundException;
 import com.xmartin.carregistry.exceptions.CarNotFoundException;
 import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.exceptions.InvalidCursorException;
 import com.xmartin.carregistry.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @Slf4j
@@ -69,16 +83,25 @@ public class CarController {
 
     }
 
-    //endpoint para consultar un solo coche con el ID, si no lo encuentra devuelve 404 not found.
+    /*
+    endpoint para consultar un solo coche con el ID, si no lo encuentra devuelve 404 not found.
+    Devuelve ETag y Last-Modified; si el cliente manda If-None-Match o If-Modified-Since y el coche no ha cambiado
+    responde 304 sin cargar el coche.
+     */
     @Operation(summary = "Get car by id", description = "Returns a car data for the specified car ID.")
     @GetMapping("/{id}")
-    public ResponseEntity<CarResponse> getCarById(@PathVariable Integer id) {
+    public ResponseEntity<CarResponse> getCarById(@PathVariable Integer id, WebRequest request) {
 
         try {
+            Optional<ResourceVersion> version = service.getCarVersion(id);
+            if (version.isPresent() && isNotModified(request, version.get())) {
+                return notModified(version.get());
+            }
+
             CarResponse response = carMapper.toResponse(service.getCarById(id));
 
             if (response != null) {
-                return ResponseEntity.ok(response);
+                return withVersion(ResponseEntity.ok(), version.orElse(null)).body(response);
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
@@ -89,14 +112,145 @@ public class CarController {
 
     }
 
-    //endpoint para consultar los coches, será asincrono por lo que uso completable future.
-    @Operation(summary = "Get cars", description = "Returns a list of car data.")
+    /*
+    endpoint para consultar los coches, será asincrono por lo que uso completable future.
+    Con el parametro after (vacio para la primera pagina) se pagina por cursor en lugar de por numero de pagina,
+    y la respuesta incluye nextCursor para pedir la siguiente. Con view=summary devuelve solo id, marca, modelo,
+    año y precio de cada coche.
+     */
+    @Operation(summary = "Get cars", description = "Returns a list of car data. Use after=<cursor> for keyset pagination " +
+            "and view=summary for a lightweight listing.")
     @GetMapping
     public CompletableFuture<ResponseEntity<?>> getCars(@RequestParam(defaultValue = "0") int page,
-                                                        @RequestParam(defaultValue = "10") int size) throws BrandNotFoundException {
+                                                        @RequestParam(defaultValue = "10") int size,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "id") String sort,
+                                                        @RequestParam(defaultValue = "full") String view,
+                                                        WebRequest request) throws BrandNotFoundException {
+
+        if (after != null) {
+            if ("summary".equals(view)) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("view=summary only supports page-based listing"));
+            }
+            return getCarsAfter(after, sort, size);
+        }
+
+        /*
+        las paginas por numero llevan ETag calculado con las versiones de sus coches. Solo se consulta la version
+        antes de cargar la pagina si el cliente manda una peticion condicional; si no, sale de la pagina cargada
+         */
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("id"));
+        if (isConditional(request)) {
+            ResourceVersion version = service.getCarsVersion(pageRequest);
+            if (isNotModified(request, version)) {
+                return CompletableFuture.completedFuture(notModified(version));
+            }
+        }
 
+        if ("summary".equals(view)) {
+            return getCarSummaries(pageRequest);
+        }
 
-        return service.getCars(PageRequest.of(page, size))
+        return service.getCars(pageRequest)
+                .thenApplyAsync(cars -> {
+                    if (cars.isEmpty()) {
+                        return ResponseEntity.noContent().build();
+                    } else {
+                        List<CarResponse> carList = carMapper.toResponseList(cars);
+                        return withVersion(ResponseEntity.ok(), service.getCarsVersion(cars)).body(
+                                CarListResponse.builder()
+                                        .page(page)
+                                        .pageSize(size)
+                                        .elements(carList.size())
+                                        .carList(carList)
+                                        .build()
+                        );
+                    }
+                })
+                .exceptionallyAsync(throwable -> ResponseEntity.internalServerError().build());
+
+    }
+
+    private CompletableFuture<ResponseEntity<?>> getCarSummaries(PageRequest pageRequest) {
+        return service.getCarSummaries(pageRequest)
+                .thenApplyAsync(summaries -> {
+                    if (summaries.isEmpty()) {
+                        return ResponseEntity.noContent().build();
+                    } else {
+                        List<CarSummaryResponse> carList = carMapper.toSummaryResponseList(summaries);
+                        return withVersion(ResponseEntity.ok(), service.getCarSummariesVersion(summaries)).body(
+                                CarSummaryListResponse.builder()
+                                        .page(pageRequest.getPageNumber())
+                                        .pageSize(pageRequest.getPageSize())
+                                        .elements(carList.size())
+                                        .carList(carList)
+                                        .build()
+                        );
+                    }
+                })
+                .exceptionallyAsync(throwable -> ResponseEntity.internalServerError().build());
+    }
+
+    private CompletableFuture<ResponseEntity<?>> getCarsAfter(String after, String sort, int size) {
+        try {
+            return service.getCarsAfter(after, sort, size)
+                    .thenApplyAsync(window -> {
+                        List<CarResponse> cars = carMapper.toResponseList(window.getCars());
+                        if (cars.isEmpty()) {
+                            return ResponseEntity.noContent().build();
+                        }
+                        return ResponseEntity.ok(
+                                CarListResponse.builder()
+                                        .pageSize(size)
+                                        .elements(cars.size())
+                                        .carList(cars)
+                                        .nextCursor(window.getNextCursor())
+                                        .build()
+                        );
+                    })
+                    .exceptionallyAsync(throwable -> {
+                        if (throwable.getCause() instanceof InvalidCursorException) {
+                            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(throwable.getCause().getMessage());
+                        }
+                        return ResponseEntity.internalServerError().build();
+                    });
+        } catch (InvalidCursorException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()));
+        }
+    }
+
+    //endpoint para buscar coches filtrando por marca, rangos de año, precio y kilometraje, combustible, color y puertas.
+    //el orden depende de los filtros (ver CarSpecifications.indexedSort)
+    @Operation(summary = "Search cars", description = "Returns the cars matching the specified filters, ordered by " +
+            "the main filtered column (year, price or mileage) and then by id.")
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<?>> searchCars(@RequestParam(required = false) String brand,
+                                                           @RequestParam(required = false) Integer minYear,
+                                                           @RequestParam(required = false) Integer maxYear,
+                                                           @RequestParam(required = false) Double minPrice,
+                                                           @RequestParam(required = false) Double maxPrice,
+                                                           @RequestParam(required = false) Integer minMileage,
+                                                           @RequestParam(required = false) Integer maxMileage,
+                                                           @RequestParam(required = false) String fuelType,
+                                                           @RequestParam(required = false) String colour,
+                                                           @RequestParam(required = false) Integer numDoors,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "10") int size) {
+
+        CarSearchCriteria criteria = CarSearchCriteria.builder()
+                .brand(brand)
+                .minYear(minYear)
+                .maxYear(maxYear)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minMileage(minMileage)
+                .maxMileage(maxMileage)
+                .fuelType(fuelType)
+                .colour(colour)
+                .numDoors(numDoors)
+                .build();
+
+        return service.searchCars(criteria, PageRequest.of(page, size))
                 .thenApplyAsync(carMapper::toResponseList)
                 .thenApplyAsync(cars -> {
                     if (cars.isEmpty()) {
@@ -113,7 +267,30 @@ public class CarController {
                     }
                 })
                 .exceptionallyAsync(throwable -> ResponseEntity.internalServerError().build());
+    }
+
+    /*
+    endpoint con estadisticas de coches (numero, precio medio y kilometraje medio) agrupadas por los campos de
+    groupBy, separados por comas: brand, fuelType y/o year. Se calculan en memoria, sin recorrer la tabla.
+     */
+    @Operation(summary = "Get car stats", description = "Returns count, average price and average mileage grouped by " +
+            "brand, fuelType and/or year.")
+    @GetMapping("/stats")
+    public ResponseEntity<?> getCarStats(@RequestParam(defaultValue = "brand") List<String> groupBy) {
+        Set<CarStatsDimension> dimensions = EnumSet.noneOf(CarStatsDimension.class);
+        for (String param : groupBy) {
+            Optional<CarStatsDimension> dimension = CarStatsDimension.fromParam(param);
+            if (dimension.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unknown groupBy field " + param + ", use brand, fuelType or year");
+            }
+            dimensions.add(dimension.get());
+        }
 
+        try {
+            return ResponseEntity.ok(carMapper.toStatsResponseList(service.getCarStats(dimensions)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
     }
 
     /*
@@ -155,8 +332,24 @@ public class CarController {
     @DeleteMapping("/brand/{brandId}")
     public ResponseEntity<String> deleteAllCarsByBrandId(@PathVariable Integer brandId) {
         try {
-            service.deleteAllCarsByBrandId(brandId);
-            return ResponseEntity.ok("All cars from Brand with ID: " + brandId + " have been deleted.");
+            long deleted = service.deleteAllCarsByBrandId(brandId);
+            return ResponseEntity.ok("All cars from Brand with ID: " + brandId + " have been deleted (" + deleted + " cars).");
+
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /*
+    endpoint para borrar los coches de varias marcas en una sola llamada. Lo usa brand-service para propagar los
+    borrados de marcas; es idempotente, asi que se puede reintentar sin problema.
+     */
+    @Operation(summary = "Delete all cars by Brand IDs", description = "Delete all cars of the specified Brand IDs.")
+    @PostMapping("/brand/delete-batch")
+    public ResponseEntity<String> deleteAllCarsByBrandIds(@RequestBody List<Integer> brandIds) {
+        try {
+            long deleted = service.deleteAllCarsByBrandIds(brandIds);
+            return ResponseEntity.ok("All cars from Brands with IDs: " + brandIds + " have been deleted (" + deleted + " cars).");
 
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -172,8 +365,8 @@ public class CarController {
 
         if (Objects.requireNonNull(file.getOriginalFilename()).contains(".csv")) {
             try {
-                return ResponseEntity.status(HttpStatus.CREATED).body(carMapper.toResponseList(service.uploadCars(file)));
-            } catch (BrandNotFoundException | FailedToLoadCarsException | NumberFormatException e) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(carMapper.toImportResponse(service.uploadCars(file)));
+            } catch (FailedToLoadCarsException e) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
             } catch (Exception e) {
                 return ResponseEntity.internalServerError().build();
@@ -184,21 +377,54 @@ public class CarController {
 
     }
 
+    /*
+    endpoint para descargar los coches en CSV. El fichero se escribe en streaming mientras se lee de la bbdd,
+    y si el cliente acepta gzip se comprime al vuelo.
+     */
     @Operation(summary = "Download CSV with cars", description = "Download a CSV file with cars data.")
     @GetMapping("/downloadCsv")
-    public ResponseEntity<?> downloadCSV() {
+    public ResponseEntity<StreamingResponseBody> downloadCSV(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setContentDispositionFormData("attachment", "cars_exported.csv");
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
 
-        try {
-            byte[] csvBytes = service.downloadCars().getBytes();
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 8192)) {
+                    service.downloadCars(gzipOutputStream);
+                }
+            } else {
+                service.downloadCars(outputStream);
+            }
+        };
 
-            return new ResponseEntity<>(csvBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // Peticiones condicionales
+
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static boolean isNotModified(WebRequest request, ResourceVersion version) {
+        return request.checkNotModified(version.getTag(), version.getLastModified().toEpochMilli());
+    }
+
+    private static <T> ResponseEntity<T> notModified(ResourceVersion version) {
+        return withVersion(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
 
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, ResourceVersion version) {
+        if (version == null) return builder;
+        return builder.eTag(version.getTag()).lastModified(version.getLastModified());
     }
 }
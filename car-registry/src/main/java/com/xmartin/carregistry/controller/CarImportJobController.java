@@ -0,0 +1,81 @@
+package com.xmartin.carregistry.controller;
+
+import com.xmartin.carregistry.controller.dtos.CarImportJobResponse;
+import com.xmartin.carregistry.controller.mappers.CarImportJobMapper;
+import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.exceptions.ImportJobNotFoundException;
+import com.xmartin.carregistry.exceptions.ImportQueueFullException;
+import com.xmartin.carregistry.service.CarImportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.util.Objects;
+
+@RestController
+@Slf4j
+@RequestMapping("/cars/import-jobs")
+@RequiredArgsConstructor
+@CrossOrigin
+public class CarImportJobController {
+
+    private final CarImportJobService service;
+
+    private final CarImportJobMapper jobMapper;
+
+    /*
+    endpoint para importar un CSV de coches en segundo plano. Devuelve el job nada mas guardar el fichero y el
+    progreso se consulta con GET /cars/import-jobs/{id}.
+     */
+    @Operation(summary = "Create car import job", description = "Stores a CSV file with cars and imports it in the background.")
+    @PostMapping
+    public ResponseEntity<?> createJob(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Missing file");
+        }
+
+        if (!Objects.requireNonNull(file.getOriginalFilename()).contains(".csv")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The file it's not a CSV");
+        }
+
+        try {
+            CarImportJobResponse response = jobMapper.toResponse(service.createJob(file));
+            return ResponseEntity.accepted().location(URI.create("/cars/import-jobs/" + response.getId())).body(response);
+        } catch (ImportQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (FailedToLoadCarsException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get car import job", description = "Returns the progress of the specified import job.")
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(jobMapper.toResponse(service.getJob(id)));
+        } catch (ImportJobNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Cancel car import job", description = "Cancels the specified import job after its current chunk.")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(jobMapper.toResponse(service.cancelJob(id)));
+        } catch (ImportJobNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.xmartin.carregistry.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportJobResponse {
+    private String id;
+    private String fileName;
+    private String status;
+    private long rowsProcessed;
+    private long inserted;
+    private long rejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private boolean cancelRequested;
+    private List<String> errors;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,19 @@
+package com.xmartin.carregistry.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportResponse {
+    private long inserted;
+    private long rejected;
+    private long elapsedMillis;
+    private List<String> errors;
+}
@@ -1,5 +1,6 @@
 package com.xmartin.carregistry.controller.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,9 +12,11 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CarListResponse {
-    private int page;
+    private Integer page;
     private int pageSize;
     private int elements;
     private List<CarResponse> carList;
+    private String nextCursor;
 }
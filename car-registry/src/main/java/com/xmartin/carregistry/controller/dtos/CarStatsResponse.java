@@ -0,0 +1,22 @@
+package com.xmartin.carregistry.controller.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//los campos por los que no se agrupa no aparecen en la respuesta
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CarStatsResponse {
+    private String brand;
+    private String fuelType;
+    private Integer year;
+    private long count;
+    private Double averagePrice;
+    private Double averageMileage;
+}
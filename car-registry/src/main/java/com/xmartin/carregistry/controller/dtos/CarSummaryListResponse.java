@@ -0,0 +1,19 @@
+package com.xmartin.carregistry.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSummaryListResponse {
+    private int page;
+    private int pageSize;
+    private int elements;
+    private List<CarSummaryResponse> carList;
+}
@@ -0,0 +1,18 @@
+package com.xmartin.carregistry.controller.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSummaryResponse {
+    private Integer id;
+    private String brand;
+    private String model;
+    private Integer year;
+    private Double price;
+}
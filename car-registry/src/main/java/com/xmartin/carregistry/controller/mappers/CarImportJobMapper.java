@@ -0,0 +1,28 @@
+package com.xmartin.carregistry.controller.mappers;
+
+import com.xmartin.carregistry.controller.dtos.CarImportJobResponse;
+import com.xmartin.carregistry.domain.CarImportJob;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CarImportJobMapper {
+
+    public CarImportJobResponse toResponse(CarImportJob job) {
+        if (job == null) return null;
+        return CarImportJobResponse.builder()
+                .id(job.getId())
+                .fileName(job.getFileName())
+                .status(job.getStatus().name())
+                .rowsProcessed(job.getRowsProcessed())
+                .inserted(job.getInserted())
+                .rejected(job.getRejected())
+                .elapsedMillis(job.getElapsedMillis())
+                .rowsPerSecond(job.getElapsedMillis() == 0 ? 0 : job.getRowsProcessed() * 1000.0 / job.getElapsedMillis())
+                .cancelRequested(job.isCancelRequested())
+                .errors(job.getErrors())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -1,9 +1,15 @@
 package com.xmartin.carregistry.controller.mappers;
 
+import com.xmartin.carregistry.controller.dtos.CarImportResponse;
 import com.xmartin.carregistry.controller.dtos.CarRequest;
 import com.xmartin.carregistry.controller.dtos.CarResponse;
+import com.xmartin.carregistry.controller.dtos.CarStatsResponse;
+import com.xmartin.carregistry.controller.dtos.CarSummaryResponse;
 import com.xmartin.carregistry.domain.Brand;
 import com.xmartin.carregistry.domain.Car;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.domain.CarStats;
+import com.xmartin.carregistry.domain.CarSummary;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -47,6 +53,48 @@ public class CarMapper {
         return carResponse;
     }
 
+    public CarSummaryResponse toSummaryResponse(CarSummary summary) {
+        if (summary == null) return null;
+        return CarSummaryResponse.builder()
+                .id(summary.getId())
+                .brand(summary.getBrandName())
+                .model(summary.getModel())
+                .year(summary.getYear())
+                .price(summary.getPrice())
+                .build();
+    }
+
+    public List<CarSummaryResponse> toSummaryResponseList(List<CarSummary> summaries) {
+        return summaries.stream().map(this::toSummaryResponse).toList();
+    }
+
+    public CarStatsResponse toStatsResponse(CarStats stats) {
+        if (stats == null) return null;
+        return CarStatsResponse.builder()
+                .brand(stats.getBrandName() != null ? stats.getBrandName()
+                        : stats.getBrandId() == null ? null : String.valueOf(stats.getBrandId()))
+                .fuelType(stats.getFuelType())
+                .year(stats.getYear())
+                .count(stats.getCount())
+                .averagePrice(stats.getAveragePrice())
+                .averageMileage(stats.getAverageMileage())
+                .build();
+    }
+
+    public List<CarStatsResponse> toStatsResponseList(List<CarStats> stats) {
+        return stats.stream().map(this::toStatsResponse).toList();
+    }
+
+    public CarImportResponse toImportResponse(CarImportResult result) {
+        if (result == null) return null;
+        return CarImportResponse.builder()
+                .inserted(result.getInserted())
+                .rejected(result.getRejected())
+                .elapsedMillis(result.getElapsedMillis())
+                .errors(result.getErrors())
+                .build();
+    }
+
     public List<CarResponse> toResponseList(List<Car> carList) {
         return carList.stream().map(this::toResponse).toList();
     }
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,4 +22,7 @@ public class Car {
     private String colour;
     private String fuelType;
     private Integer numDoors;
+    //para el ETag de los listados
+    private Long version;
+    private Instant lastModified;
 }
@@ -0,0 +1,28 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportJob {
+    private String id;
+    private String fileName;
+    private ImportJobStatus status;
+    private long rowsProcessed;
+    private long inserted;
+    private long rejected;
+    private long elapsedMillis;
+    private List<String> errors;
+    private boolean cancelRequested;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,21 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportResult {
+    private long inserted;
+    private long rejected;
+    private long elapsedMillis;
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,23 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSearchCriteria {
+    private String brand;
+    private Integer minYear;
+    private Integer maxYear;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minMileage;
+    private Integer maxMileage;
+    private String fuelType;
+    private String colour;
+    private Integer numDoors;
+}
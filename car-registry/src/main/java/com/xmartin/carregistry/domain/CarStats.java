@@ -0,0 +1,20 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarStats {
+    private Integer brandId;
+    private String brandName;
+    private String fuelType;
+    private Integer year;
+    private long count;
+    private Double averagePrice;
+    private Double averageMileage;
+}
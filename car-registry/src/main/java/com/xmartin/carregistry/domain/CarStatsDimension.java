@@ -0,0 +1,21 @@
+package com.xmartin.carregistry.domain;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+//campos por los que se pueden agrupar las estadisticas de GET /cars/stats
+public enum CarStatsDimension {
+    BRAND("brand"),
+    FUEL_TYPE("fuelType"),
+    YEAR("year");
+
+    private final String param;
+
+    CarStatsDimension(String param) {
+        this.param = param;
+    }
+
+    public static Optional<CarStatsDimension> fromParam(String param) {
+        return Arrays.stream(values()).filter(dimension -> dimension.param.equalsIgnoreCase(param.trim())).findFirst();
+    }
+}
@@ -0,0 +1,34 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+Fila del GROUP BY de coches por marca, combustible y año. Guarda sumas y cuantos valores no nulos hay en lugar
+de medias, para poder sumar filas al agrupar por menos campos y aplicar altas y bajas sin recalcular.
+ */
+@Data
+@NoArgsConstructor
+public class CarStatsRow {
+    private Integer brandId;
+    private String fuelType;
+    private Integer year;
+    private long count;
+    private double priceSum;
+    private long priceCount;
+    private long mileageSum;
+    private long mileageCount;
+
+    //tambien lo usa la consulta JPQL, donde las sumas de los grupos sin valores llegan a null
+    public CarStatsRow(Integer brandId, String fuelType, Integer year, Long count, Double priceSum, Long priceCount,
+                       Long mileageSum, Long mileageCount) {
+        this.brandId = brandId;
+        this.fuelType = fuelType;
+        this.year = year;
+        this.count = count;
+        this.priceSum = priceSum == null ? 0 : priceSum;
+        this.priceCount = priceCount;
+        this.mileageSum = mileageSum == null ? 0 : mileageSum;
+        this.mileageCount = mileageCount;
+    }
+}
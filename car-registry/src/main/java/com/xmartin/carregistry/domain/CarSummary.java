@@ -0,0 +1,38 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*
+Vista reducida de un coche para los listados. Se construye directamente desde la consulta JPQL, sin pasar por
+CarEntity, y solo lleva las columnas que se muestran.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSummary {
+    private Integer id;
+    private Integer brandId;
+    private String brandName;
+    private String model;
+    private Integer year;
+    private Double price;
+    //version del coche y de su marca, para el ETag del listado
+    private Long version;
+    private Instant lastModified;
+    private Long brandVersion;
+    private Instant brandLastModified;
+
+    public CarSummary(Integer id, Integer brandId, String model, Integer year, Double price, Long version, Instant lastModified) {
+        this(id, brandId, null, model, year, price, version, lastModified, null, null);
+    }
+
+    public CarSummary(Integer id, Integer brandId, String model, Integer year, Double price) {
+        this(id, brandId, model, year, price, null, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//version de un coche leida sin cargar la entidad, para las peticiones condicionales
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarVersion {
+    private Integer id;
+    private Integer brandId;
+    private Long version;
+    private Instant lastModified;
+}
@@ -0,0 +1,9 @@
+package com.xmartin.carregistry.domain;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
@@ -0,0 +1,21 @@
+package com.xmartin.carregistry.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*
+Huella de la representacion de uno o varios coches: tag cambia siempre que cambie algun coche o su marca
+y lastModified es la modificacion mas reciente. El controller los usa como ETag y Last-Modified.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceVersion {
+    private String tag;
+    private Instant lastModified;
+}
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -28,4 +30,15 @@ public class CarEntity {
     private String fuelType;
     @Column(name = "num_doors")
     private Integer numDoors;
+    //se incrementa en cada update, sirve de ETag junto con last_modified
+    @Version
+    private Long version;
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
 }
@@ -0,0 +1,50 @@
+package com.xmartin.carregistry.entity;
+
+import com.xmartin.carregistry.domain.ImportJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+//solo actualiza las columnas modificadas, para no pisar la cancelacion al guardar el progreso
+@DynamicUpdate
+@Entity
+@Table(name = "car_import_job")
+public class CarImportJobEntity {
+    @Id
+    private String id;
+    @Column(name = "file_name")
+    private String fileName;
+    @Column(name = "stored_path", nullable = false)
+    private String storedPath;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportJobStatus status;
+    @Column(name = "rows_processed")
+    private long rowsProcessed;
+    private long inserted;
+    private long rejected;
+    @Column(name = "elapsed_ms")
+    private long elapsedMillis;
+    private String errors;
+    @Column(name = "cancel_requested")
+    private boolean cancelRequested;
+    @Column(name = "created_at")
+    private Instant createdAt;
+    @Column(name = "started_at")
+    private Instant startedAt;
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+    //instancia que esta procesando el job y ultima vez que dio señales de vida
+    private String owner;
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+}
@@ -0,0 +1,7 @@
+package com.xmartin.carregistry.exceptions;
+
+public class ImportJobNotFoundException extends Exception {
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.xmartin.carregistry.exceptions;
+
+public class ImportQueueFullException extends Exception {
+    public ImportQueueFullException(String message) {
+        super(message);
+    }
+}
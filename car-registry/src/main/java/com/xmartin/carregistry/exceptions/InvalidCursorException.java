@@ -0,0 +1,7 @@
+package com.xmartin.carregistry.exceptions;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
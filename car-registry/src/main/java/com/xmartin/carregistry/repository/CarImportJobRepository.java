@@ -0,0 +1,42 @@
+package com.xmartin.carregistry.repository;
+
+import com.xmartin.carregistry.domain.ImportJobStatus;
+import com.xmartin.carregistry.entity.CarImportJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface CarImportJobRepository extends JpaRepository<CarImportJobEntity, String> {
+
+    List<CarImportJobEntity> findAllByStatusIn(Collection<ImportJobStatus> statuses);
+
+    @Modifying
+    @Query("update CarImportJobEntity j set j.cancelRequested = true where j.id = :id")
+    int requestCancel(@Param("id") String id);
+
+    @Modifying
+    @Query("update CarImportJobEntity j set j.status = :to, j.finishedAt = :finishedAt where j.id = :id and j.status = :from")
+    int updateStatus(@Param("id") String id, @Param("from") ImportJobStatus from, @Param("to") ImportJobStatus to,
+                     @Param("finishedAt") Instant finishedAt);
+
+    //se queda el job si esta pendiente y nadie lo tiene, o si el heartbeat de su dueño es anterior a staleBefore
+    @Transactional
+    @Modifying
+    @Query("update CarImportJobEntity j set j.status = :running, j.owner = :owner, j.heartbeatAt = :now, " +
+            "j.startedAt = coalesce(j.startedAt, :now) " +
+            "where j.id = :id and j.status in :pending and (j.owner is null or j.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") String id, @Param("pending") Collection<ImportJobStatus> pending,
+              @Param("running") ImportJobStatus running, @Param("owner") String owner,
+              @Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+    @Modifying
+    @Query("update CarImportJobEntity j set j.heartbeatAt = :now where j.id = :id and j.owner = :owner")
+    int renewLease(@Param("id") String id, @Param("owner") String owner, @Param("now") Instant now);
+
+}
@@ -1,10 +1,81 @@
 package com.xmartin.carregistry.repository;
 
+import com.xmartin.carregistry.domain.CarStatsRow;
+import com.xmartin.carregistry.domain.CarSummary;
+import com.xmartin.carregistry.domain.CarVersion;
 import com.xmartin.carregistry.entity.CarEntity;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface CarRepository extends JpaRepository<CarEntity, Integer> {
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-    void deleteAllByBrandId(Integer brandId);
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface CarRepository extends JpaRepository<CarEntity, Integer>, JpaSpecificationExecutor<CarEntity>,
+        CarSearchRepository {
+
+    /*
+    Borra como mucho limit coches de la marca con un solo DELETE, sin cargarlos en el contexto de persistencia.
+    Se llama en bucle, cada vez en su propia transaccion, hasta que devuelve 0.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM car WHERE brand_id = :brandId LIMIT :limit", nativeQuery = true)
+    int deleteChunkByBrandId(@Param("brandId") Integer brandId, @Param("limit") int limit);
+
+    //pagina por numero sin el SELECT COUNT(*) que haria findAll(pageable)
+    Slice<CarEntity> findAllBy(Pageable pageable);
+
+    //paginacion por keyset: filtra por la ultima clave devuelta en lugar de usar OFFSET
+    Window<CarEntity> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    //solo las columnas del listado resumido, sin cargar la entidad completa (description es TEXT)
+    @Query("select new com.xmartin.carregistry.domain.CarSummary(c.id, c.brandId, c.model, c.year, c.price, c.version, c.lastModified) from CarEntity c")
+    List<CarSummary> findAllSummaries(Pageable pageable);
+
+    //versiones para los ETag: no leen el resto de columnas
+    @Query("select new com.xmartin.carregistry.domain.CarVersion(c.id, c.brandId, c.version, c.lastModified) from CarEntity c where c.id = :id")
+    Optional<CarVersion> findVersionById(@Param("id") Integer id);
+
+    @Query("select new com.xmartin.carregistry.domain.CarVersion(c.id, c.brandId, c.version, c.lastModified) from CarEntity c")
+    List<CarVersion> findAllVersions(Pageable pageable);
+
+    //base de las estadisticas: una fila por marca, combustible y año (ver CarStatsCube)
+    @Query("select new com.xmartin.carregistry.domain.CarStatsRow(c.brandId, c.fuelType, c.year, count(c), " +
+            "sum(c.price), count(c.price), sum(c.mileage), count(c.mileage)) " +
+            "from CarEntity c group by c.brandId, c.fuelType, c.year")
+    List<CarStatsRow> aggregateStats();
+
+    //primera lectura de la transaccion del rebuild de CarStatsCube: con REPEATABLE READ fija su snapshot
+    @Query(value = "SELECT 1 FROM car LIMIT 1", nativeQuery = true)
+    List<Integer> openSnapshot();
+
+    @Query("select distinct c.brandId from CarEntity c")
+    List<Integer> findDistinctBrandIds();
+
+    /*
+    Recorre toda la tabla con un cursor en lugar de cargarla entera. Con MySQL, un fetch size de
+    Integer.MIN_VALUE hace que el driver devuelva las filas de una en una. Hay que consumirlo dentro de una
+    transaccion y cerrarlo al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from CarEntity c")
+    Stream<CarEntity> streamAll();
 
 }
@@ -0,0 +1,12 @@
+package com.xmartin.carregistry.repository;
+
+import com.xmartin.carregistry.entity.CarEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface CarSearchRepository {
+
+    //como findAll(spec, pageable) pero sin el SELECT COUNT(*): pide una fila de mas para saber si hay otra pagina
+    Slice<CarEntity> findSlice(Specification<CarEntity> spec, Pageable pageable);
+}
@@ -0,0 +1,57 @@
+package com.xmartin.carregistry.repository;
+
+import com.xmartin.carregistry.domain.CarSearchCriteria;
+import com.xmartin.carregistry.entity.CarEntity;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/*
+Filtros para la busqueda de coches. Cada filtro devuelve null si no se ha indicado, y Specification.where/and
+ignora los null, asi que la consulta solo lleva las condiciones que se han pedido. Los filtros son de igualdad o
+de rango sobre columnas indexadas (ver changeset 4 de changelog.xml).
+El orden de los resultados tambien sale de los filtros (indexedSort): se ordena por las columnas del indice que
+se va a usar, terminando en id (InnoDB lo añade a todos los indices). Asi MySQL recorre el indice ya ordenado y
+para en cuanto tiene la pagina; con ORDER BY id prefiere recorrer la clave primaria entera buscando filas que
+cumplan el filtro.
+ */
+public final class CarSpecifications {
+
+    private CarSpecifications() {
+    }
+
+    public static Specification<CarEntity> matching(CarSearchCriteria criteria, Integer brandId) {
+        return Specification.where(equalTo("brandId", brandId))
+                .and(between("year", criteria.getMinYear(), criteria.getMaxYear()))
+                .and(between("price", criteria.getMinPrice(), criteria.getMaxPrice()))
+                .and(between("mileage", criteria.getMinMileage(), criteria.getMaxMileage()))
+                .and(equalTo("fuelType", criteria.getFuelType()))
+                .and(equalTo("colour", criteria.getColour()))
+                .and(equalTo("numDoors", criteria.getNumDoors()));
+    }
+
+    public static Sort indexedSort(CarSearchCriteria criteria, Integer brandId) {
+        boolean yearRange = criteria.getMinYear() != null || criteria.getMaxYear() != null;
+        boolean priceRange = criteria.getMinPrice() != null || criteria.getMaxPrice() != null;
+
+        if (brandId != null) {
+            //idx_car_brand_price solo si no se filtra tambien por año
+            return Sort.by(priceRange && !yearRange ? "price" : "year", "id");
+        }
+        if (criteria.getFuelType() != null || yearRange) return Sort.by("year", "id");
+        if (priceRange) return Sort.by("price", "id");
+        if (criteria.getMinMileage() != null || criteria.getMaxMileage() != null) return Sort.by("mileage", "id");
+        return Sort.by("id");
+    }
+
+    private static Specification<CarEntity> equalTo(String attribute, Object value) {
+        if (value == null) return null;
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<CarEntity> between(String attribute, T min, T max) {
+        if (min == null && max == null) return null;
+        if (max == null) return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(attribute), min);
+        if (min == null) return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(attribute), max);
+        return (root, query, cb) -> cb.between(root.get(attribute), min, max);
+    }
+}
@@ -0,0 +1,15 @@
+package com.xmartin.carregistry.service;
+
+import com.xmartin.carregistry.domain.CarImportJob;
+import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.exceptions.ImportJobNotFoundException;
+import com.xmartin.carregistry.exceptions.ImportQueueFullException;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface CarImportJobService {
+    CarImportJob createJob(MultipartFile file) throws FailedToLoadCarsException, ImportQueueFullException;
+
+    CarImportJob getJob(String id) throws ImportJobNotFoundException;
+
+    CarImportJob cancelJob(String id) throws ImportJobNotFoundException;
+}
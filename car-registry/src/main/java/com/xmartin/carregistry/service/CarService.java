@@ -1,13 +1,25 @@
 package com.xmartin.carregistry.service;
 
 import com.xmartin.carregistry.domain.Car;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.domain.CarSearchCriteria;
+import com.xmartin.carregistry.domain.CarStats;
+import com.xmartin.carregistry.domain.CarStatsDimension;
+import com.xmartin.carregistry.domain.CarSummary;
+import com.xmartin.carregistry.domain.CarWindow;
+import com.xmartin.carregistry.domain.ResourceVersion;
 import com.xmartin.carregistry.exceptions.BrandNotFoundException;
 import com.xmartin.carregistry.exceptions.CarNotFoundException;
 import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.exceptions.InvalidCursorException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 public interface CarService {
@@ -15,17 +27,35 @@ public interface CarService {
 
     CompletableFuture<List<Car>> getCars(Pageable pageable) throws BrandNotFoundException;
 
+    CompletableFuture<List<CarSummary>> getCarSummaries(Pageable pageable);
+
+    List<CarStats> getCarStats(Set<CarStatsDimension> groupBy);
+
+    ResourceVersion getCarsVersion(Pageable pageable);
+
+    ResourceVersion getCarsVersion(List<Car> cars);
+
+    ResourceVersion getCarSummariesVersion(List<CarSummary> summaries);
+
+    Optional<ResourceVersion> getCarVersion(Integer id);
+
+    CompletableFuture<CarWindow> getCarsAfter(String cursor, String sortKey, int size) throws InvalidCursorException;
+
+    CompletableFuture<List<Car>> searchCars(CarSearchCriteria criteria, Pageable pageable);
+
     Car getCarById(Integer id) throws BrandNotFoundException, CarNotFoundException;
 
     Car updateCar(Car car, Integer id) throws CarNotFoundException, BrandNotFoundException;
 
     void deleteCar(Integer id) throws CarNotFoundException;
 
-    void deleteAllCarsByBrandId(Integer brandId);
+    long deleteAllCarsByBrandId(Integer brandId);
+
+    long deleteAllCarsByBrandIds(List<Integer> brandIds);
 
     CompletableFuture<List<Car>> addCars(List<Car> cars) throws BrandNotFoundException;
 
-    List<Car> uploadCars(MultipartFile file) throws BrandNotFoundException, FailedToLoadCarsException;
+    CarImportResult uploadCars(MultipartFile file) throws FailedToLoadCarsException;
 
-    String downloadCars() throws BrandNotFoundException;
+    void downloadCars(OutputStream outputStream) throws IOException;
 }
@@ -25,12 +25,20 @@ public class CarConverter {
         car.setYear(carEntity.getYear());
         car.setPrice(carEntity.getPrice());
         car.setNumDoors(carEntity.getNumDoors());
+        car.setVersion(carEntity.getVersion());
+        car.setLastModified(carEntity.getLastModified());
         return car;
     }
 
     public CarEntity toEntity(Car car) {
         CarEntity carEntity = new CarEntity();
         carEntity.setId(car.getId());
+        updateEntity(carEntity, car);
+        return carEntity;
+    }
+
+    //copia los datos del coche sobre una entidad ya existente, sin tocar id ni version
+    public void updateEntity(CarEntity carEntity, Car car) {
         carEntity.setBrandId(car.getBrand().getId());
         carEntity.setColour(car.getColour());
         carEntity.setMileage(car.getMileage());
@@ -40,7 +48,6 @@ public class CarConverter {
         carEntity.setYear(car.getYear());
         carEntity.setPrice(car.getPrice());
         carEntity.setNumDoors(car.getNumDoors());
-        return carEntity;
     }
 
     public List<Car> toCarList(List<CarEntity> carEntities) {
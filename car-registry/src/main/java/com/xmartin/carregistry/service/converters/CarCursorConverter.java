@@ -0,0 +1,67 @@
+package com.xmartin.carregistry.service.converters;
+
+import com.xmartin.carregistry.exceptions.InvalidCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Convierte las posiciones de keyset de Spring Data en cursores opacos para el cliente y al reves. El cursor
+guarda la clave de ordenacion, el id del ultimo coche devuelto y, si se ordena por otra columna, su valor.
+Solo se permite ordenar por columnas no nulas, porque una comparacion con NULL se saltaria filas.
+ */
+@Component
+public class CarCursorConverter {
+
+    public static final String DEFAULT_SORT_KEY = "id";
+    private static final Set<String> SORT_KEYS = Set.of("id", "model");
+    private static final String SEPARATOR = ":";
+
+    public boolean isAllowedSortKey(String sortKey) {
+        return SORT_KEYS.contains(sortKey);
+    }
+
+    public Sort toSort(String sortKey) {
+        return DEFAULT_SORT_KEY.equals(sortKey) ? Sort.by(DEFAULT_SORT_KEY) : Sort.by(sortKey, DEFAULT_SORT_KEY);
+    }
+
+    public String toCursor(String sortKey, ScrollPosition position) {
+        Map<String, ?> keys = ((KeysetScrollPosition) position).getKeys();
+        String raw = sortKey + SEPARATOR + keys.get(DEFAULT_SORT_KEY);
+        if (!DEFAULT_SORT_KEY.equals(sortKey)) {
+            raw += SEPARATOR + keys.get(sortKey);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ScrollPosition toScrollPosition(String sortKey, String cursor) throws InvalidCursorException {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            //el valor de la columna va al final porque puede contener el separador
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (!parts[0].equals(sortKey)) {
+                throw new InvalidCursorException("Cursor was created for sort " + parts[0] + ", not " + sortKey);
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            if (!DEFAULT_SORT_KEY.equals(sortKey)) {
+                keys.put(sortKey, parts[2]);
+            }
+            keys.put(DEFAULT_SORT_KEY, Integer.valueOf(parts[1]));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.xmartin.carregistry.service.converters;
+
+import com.xmartin.carregistry.domain.CarImportJob;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.entity.CarImportJobEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+public class CarImportJobConverter {
+
+    public CarImportJob toImportJob(CarImportJobEntity entity) {
+        return CarImportJob.builder()
+                .id(entity.getId())
+                .fileName(entity.getFileName())
+                .status(entity.getStatus())
+                .rowsProcessed(entity.getRowsProcessed())
+                .inserted(entity.getInserted())
+                .rejected(entity.getRejected())
+                .elapsedMillis(entity.getElapsedMillis())
+                .errors(toErrorList(entity.getErrors()))
+                .cancelRequested(entity.isCancelRequested())
+                .createdAt(entity.getCreatedAt())
+                .startedAt(entity.getStartedAt())
+                .finishedAt(entity.getFinishedAt())
+                .build();
+    }
+
+    //progreso acumulado del job, para continuar una importacion a medias
+    public CarImportResult toImportResult(CarImportJobEntity entity) {
+        return CarImportResult.builder()
+                .inserted(entity.getInserted())
+                .rejected(entity.getRejected())
+                .elapsedMillis(entity.getElapsedMillis())
+                .errors(new ArrayList<>(toErrorList(entity.getErrors())))
+                .build();
+    }
+
+    public void updateProgress(CarImportJobEntity entity, long rowsProcessed, CarImportResult progress) {
+        entity.setRowsProcessed(rowsProcessed);
+        entity.setInserted(progress.getInserted());
+        entity.setRejected(progress.getRejected());
+        entity.setElapsedMillis(progress.getElapsedMillis());
+        entity.setErrors(progress.getErrors().isEmpty() ? null : String.join("\n", progress.getErrors()));
+    }
+
+    private static List<String> toErrorList(String errors) {
+        return errors == null || errors.isEmpty() ? List.of() : Arrays.asList(errors.split("\n"));
+    }
+}
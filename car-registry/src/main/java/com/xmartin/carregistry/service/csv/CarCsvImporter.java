@@ -0,0 +1,150 @@
+package com.xmartin.carregistry.service.csv;
+
+import com.xmartin.carregistry.client.BrandCache;
+import com.xmartin.carregistry.domain.Brand;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.entity.CarEntity;
+import com.xmartin.carregistry.exceptions.BrandNotFoundException;
+import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.repository.CarRepository;
+import com.xmartin.carregistry.service.stats.CarStatsCube;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+Importa coches desde un CSV leyendo los registros de uno en uno. Las filas validas se guardan en bloques de
+chunkSize, cada bloque en su propia transaccion, y las filas con errores se cuentan como rechazadas en lugar de
+abortar toda la importacion. Cada marca distinta se resuelve una sola vez por importacion.
+ */
+@Component
+@Slf4j
+public class CarCsvImporter {
+
+    private static final List<String> REQUIRED_HEADERS = List.of("brand", "model", "description", "colour",
+            "fuel_type", "mileage", "num_doors", "price", "year");
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final CarRepository carRepository;
+    private final BrandCache brandCache;
+    private final CarStatsCube carStatsCube;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public CarCsvImporter(CarRepository carRepository,
+                          BrandCache brandCache,
+                          CarStatsCube carStatsCube,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${car-import.chunk-size:1000}") int chunkSize) {
+        this.carRepository = carRepository;
+        this.brandCache = brandCache;
+        this.carStatsCube = carStatsCube;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public CarImportResult importCars(Reader reader) throws IOException, FailedToLoadCarsException {
+        return importCars(reader, CarImportResult.builder().build(), 0, CarImportListener.NONE);
+    }
+
+    /*
+    Version reanudable: se salta los primeros skipRecords registros (ya confirmados en una ejecucion anterior) y
+    sigue acumulando sobre result. El bloque se cierra cada chunkSize registros leidos, validos o no, y entre
+    bloque y bloque se comprueba si se ha cancelado la importacion.
+     */
+    public CarImportResult importCars(Reader reader, CarImportResult result, long skipRecords, CarImportListener listener)
+            throws IOException, FailedToLoadCarsException {
+        long start = System.currentTimeMillis() - result.getElapsedMillis();
+        Map<String, Optional<Brand>> brands = new HashMap<>();
+        List<CarEntity> chunk = new ArrayList<>(chunkSize);
+        long recordsInChunk = 0;
+        long lastRecord = skipRecords;
+
+        try (CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
+            ensureHeaders(csvParser);
+
+            for (CSVRecord csvRecord : csvParser) {
+                if (csvRecord.getRecordNumber() <= skipRecords) continue;
+                lastRecord = csvRecord.getRecordNumber();
+
+                try {
+                    chunk.add(toEntity(csvRecord, brands));
+                } catch (BrandNotFoundException | IllegalArgumentException e) {
+                    reject(result, csvRecord.getRecordNumber(), e.getMessage());
+                }
+
+                if (++recordsInChunk >= chunkSize) {
+                    commitChunk(chunk, lastRecord, start, result, listener);
+                    recordsInChunk = 0;
+                    if (listener.isCancelled()) break;
+                }
+            }
+            if (recordsInChunk > 0) {
+                commitChunk(chunk, lastRecord, start, result, listener);
+            }
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Imported {} cars ({} rejected) in {} ms", result.getInserted(), result.getRejected(), result.getElapsedMillis());
+        return result;
+    }
+
+    private void commitChunk(List<CarEntity> chunk, long lastRecord, long start, CarImportResult result,
+                             CarImportListener listener) {
+        transactionTemplate.executeWithoutResult(status -> {
+            carRepository.saveAll(chunk);
+            carStatsCube.recordAfterCommit(List.of(), CarStatsCube.facts(chunk));
+            result.setInserted(result.getInserted() + chunk.size());
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+            listener.onChunkCommitted(lastRecord, result);
+        });
+        chunk.clear();
+    }
+
+    private CarEntity toEntity(CSVRecord csvRecord, Map<String, Optional<Brand>> brands) throws BrandNotFoundException {
+        String brandName = csvRecord.get("brand");
+        Brand brand = brands.computeIfAbsent(BrandCache.normalize(brandName), brandCache::getBrandByName)
+                .orElseThrow(() -> new BrandNotFoundException("Brand with name: " + brandName + " was not found"));
+
+        return CarEntity.builder()
+                .brandId(brand.getId())
+                .model(csvRecord.get("model"))
+                .description(csvRecord.get("description"))
+                .colour(csvRecord.get("colour"))
+                .fuelType(csvRecord.get("fuel_type"))
+                .mileage(Integer.valueOf(csvRecord.get("mileage")))
+                .numDoors(Integer.valueOf(csvRecord.get("num_doors")))
+                .price(Double.valueOf(csvRecord.get("price")))
+                .year(Integer.valueOf(csvRecord.get("year")))
+                .build();
+    }
+
+    private static void ensureHeaders(CSVParser csvParser) throws FailedToLoadCarsException {
+        Map<String, Integer> headerMap = csvParser.getHeaderMap();
+        for (String header : REQUIRED_HEADERS) {
+            if (headerMap == null || headerMap.keySet().stream().noneMatch(header::equalsIgnoreCase)) {
+                throw new FailedToLoadCarsException("Missing column " + header + " in CSV");
+            }
+        }
+    }
+
+    private static void reject(CarImportResult result, long recordNumber, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("Record " + recordNumber + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.xmartin.carregistry.service.csv;
+
+import com.xmartin.carregistry.domain.CarImportResult;
+
+/*
+Permite seguir el progreso de una importacion. onChunkCommitted se ejecuta dentro de la transaccion del bloque,
+asi que lo que se guarde ahi se confirma junto con los coches del bloque.
+ */
+public interface CarImportListener {
+
+    CarImportListener NONE = new CarImportListener() {
+    };
+
+    default void onChunkCommitted(long recordsProcessed, CarImportResult progress) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.xmartin.carregistry.service.csv;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/*
+Escritor CSV minimo (RFC 4180) que escribe fila a fila directamente sobre un Writer, sin construir el fichero
+en memoria. Solo entrecomilla los campos que lo necesitan.
+ */
+public class CsvWriter implements Flushable {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(SEPARATOR);
+            writeField(values[i]);
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(Object value) throws IOException {
+        if (value == null) return;
+        String field = value.toString();
+        if (!needsQuotes(field)) {
+            writer.write(field);
+            return;
+        }
+
+        writer.write(QUOTE);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == QUOTE) writer.write(QUOTE);
+            writer.write(c);
+        }
+        writer.write(QUOTE);
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,321 @@
+package com.xmartin.carregistry.service.impl;
+
+import com.xmartin.carregistry.domain.CarImportJob;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.domain.ImportJobStatus;
+import com.xmartin.carregistry.entity.CarImportJobEntity;
+import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.exceptions.ImportJobNotFoundException;
+import com.xmartin.carregistry.exceptions.ImportQueueFullException;
+import com.xmartin.carregistry.repository.CarImportJobRepository;
+import com.xmartin.carregistry.service.CarImportJobService;
+import com.xmartin.carregistry.service.converters.CarImportJobConverter;
+import com.xmartin.carregistry.service.csv.CarCsvImporter;
+import com.xmartin.carregistry.service.csv.CarImportListener;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/*
+Importaciones de coches en segundo plano. El fichero subido se guarda en disco y se procesa en un pool de hilos
+propio y acotado. El progreso se guarda en car_import_job en la misma transaccion que cada bloque de coches, asi
+que si el servicio se reinicia el job continua justo despues del ultimo bloque confirmado.
+Para procesar un job hay que reclamarlo antes con un UPDATE condicional (owner + heartbeat_at): solo lo consigue
+una instancia, y otra solo puede quedarselo si el heartbeat lleva mas de lease-timeout sin renovarse. El
+heartbeat se renueva con cada bloque, en su misma transaccion.
+ */
+@Service
+@Slf4j
+public class CarImportJobServiceImpl implements CarImportJobService {
+
+    private static final List<ImportJobStatus> PENDING_STATUSES = List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+
+    private final CarImportJobRepository jobRepository;
+    private final CarImportJobConverter jobConverter;
+    private final CarCsvImporter carCsvImporter;
+    private final TaskExecutor importExecutor;
+    private final EntityManager entityManager;
+    private final Path storageDir;
+    private final Duration leaseTimeout;
+    private final String instanceId = UUID.randomUUID().toString();
+    //jobs ya encolados en este nodo, para no volver a encolarlos en cada revision
+    private final Set<String> submitted = ConcurrentHashMap.newKeySet();
+
+    public CarImportJobServiceImpl(CarImportJobRepository jobRepository,
+                                   CarImportJobConverter jobConverter,
+                                   CarCsvImporter carCsvImporter,
+                                   @Qualifier("importExecutor") TaskExecutor importExecutor,
+                                   EntityManager entityManager,
+                                   @Value("${car-import.storage-dir:./data/car-imports}") String storageDir,
+                                   @Value("${car-import.lease-timeout:5m}") Duration leaseTimeout) {
+        this.jobRepository = jobRepository;
+        this.jobConverter = jobConverter;
+        this.carCsvImporter = carCsvImporter;
+        this.importExecutor = importExecutor;
+        this.entityManager = entityManager;
+        this.storageDir = Paths.get(storageDir);
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    @Override
+    public CarImportJob createJob(MultipartFile file) throws FailedToLoadCarsException, ImportQueueFullException {
+        String id = UUID.randomUUID().toString();
+        Path storedFile = storageDir.resolve(id + ".csv");
+
+        try {
+            Files.createDirectories(storageDir);
+            file.transferTo(storedFile);
+        } catch (IOException e) {
+            log.error("Failed to store import file", e);
+            throw new FailedToLoadCarsException("Failed to store the uploaded file");
+        }
+
+        CarImportJobEntity job = jobRepository.save(CarImportJobEntity.builder()
+                .id(id)
+                .fileName(file.getOriginalFilename())
+                .storedPath(storedFile.toString())
+                .status(ImportJobStatus.QUEUED)
+                .createdAt(Instant.now())
+                .build());
+
+        try {
+            submit(id);
+        } catch (RejectedExecutionException e) {
+            jobRepository.delete(job);
+            deleteQuietly(storedFile);
+            throw new ImportQueueFullException("Too many imports in progress, try again later");
+        }
+
+        return jobConverter.toImportJob(job);
+    }
+
+    @Override
+    public CarImportJob getJob(String id) throws ImportJobNotFoundException {
+        return jobConverter.toImportJob(findJobEntityById(id));
+    }
+
+    /*
+    La cancelacion solo marca el job. Si aun estaba en cola se da por cancelado directamente y su fichero se borra
+    al hacer commit, porque ya no lo va a reclamar nadie; si ya estaba en marcha, el hilo que lo procesa lo vera al
+    terminar el bloque actual y borrara el fichero el mismo.
+     */
+    @Override
+    @Transactional
+    public CarImportJob cancelJob(String id) throws ImportJobNotFoundException {
+        CarImportJobEntity job = findJobEntityById(id);
+        if (isFinished(job.getStatus())) {
+            return jobConverter.toImportJob(job);
+        }
+
+        jobRepository.requestCancel(id);
+        if (jobRepository.updateStatus(id, ImportJobStatus.QUEUED, ImportJobStatus.CANCELLED, Instant.now()) == 1) {
+            deleteAfterCommit(Paths.get(job.getStoredPath()));
+        }
+        entityManager.refresh(job);
+        return jobConverter.toImportJob(job);
+    }
+
+    /*
+    Al arrancar, y despues cada resume-interval-ms, volvemos a encolar los jobs que se quedaron a medias. Solo se
+    miran los que tienen el fichero accesible desde este nodo; si el job lo sigue procesando otra instancia, el
+    reclamo en runJob falla y no se hace nada. De paso se borran los ficheros que hayan quedado de jobs ya
+    terminados (p.ej. si el servicio se paro justo despues de terminar uno).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${car-import.resume-interval-ms:60000}",
+            initialDelayString = "${car-import.resume-interval-ms:60000}")
+    public void resumePendingJobs() {
+        deleteFilesOfFinishedJobs();
+        for (CarImportJobEntity job : jobRepository.findAllByStatusIn(PENDING_STATUSES)) {
+            if (submitted.contains(job.getId()) || !Files.exists(Paths.get(job.getStoredPath()))) continue;
+            try {
+                log.info("Resuming import job {} after record {}", job.getId(), job.getRowsProcessed());
+                submit(job.getId());
+            } catch (RejectedExecutionException e) {
+                log.warn("Import queue is full, job {} will be resumed later", job.getId());
+            }
+        }
+    }
+
+    // Métodos auxiliares privados
+
+    private void submit(String id) {
+        submitted.add(id);
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    runJob(id);
+                } finally {
+                    submitted.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            submitted.remove(id);
+            throw e;
+        }
+    }
+
+    private void runJob(String id) {
+        Instant now = Instant.now();
+        if (jobRepository.claim(id, PENDING_STATUSES, ImportJobStatus.RUNNING, instanceId, now, now.minus(leaseTimeout)) == 0) {
+            //lo procesa otra instancia o ya ha terminado (p.ej. cancelado mientras estaba en cola)
+            jobRepository.findById(id)
+                    .filter(job -> isFinished(job.getStatus()))
+                    .ifPresent(job -> deleteQuietly(Paths.get(job.getStoredPath())));
+            return;
+        }
+
+        CarImportJobEntity job = jobRepository.findById(id).orElse(null);
+        if (job == null) return;
+        Path storedFile = Paths.get(job.getStoredPath());
+        boolean leaseLost = false;
+
+        try {
+            if (job.isCancelRequested()) {
+                finishJob(id, ImportJobStatus.CANCELLED, null);
+                return;
+            }
+
+            CarImportResult progress = jobConverter.toImportResult(job);
+            JobProgressListener listener = new JobProgressListener(id);
+            try (BufferedReader reader = Files.newBufferedReader(storedFile, StandardCharsets.UTF_8)) {
+                carCsvImporter.importCars(reader, progress, job.getRowsProcessed(), listener);
+            }
+            finishJob(id, listener.isCancelled() ? ImportJobStatus.CANCELLED : ImportJobStatus.COMPLETED, null);
+        } catch (LeaseLostException e) {
+            //el bloque en curso se ha deshecho y el job sigue en la otra instancia, que necesita el fichero
+            leaseLost = true;
+            log.warn("Import job {} was taken over by another instance", id);
+        } catch (Exception e) {
+            log.error("Import job {} failed", id, e);
+            finishJob(id, ImportJobStatus.FAILED, e.getMessage());
+        } finally {
+            if (!leaseLost) deleteQuietly(storedFile);
+        }
+    }
+
+    private void deleteFilesOfFinishedJobs() {
+        Map<String, Path> filesById = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storageDir, "*.csv")) {
+            files.forEach(file -> filesById.put(file.getFileName().toString().replaceFirst("\\.csv$", ""), file));
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("Could not list import files in {}", storageDir, e);
+            return;
+        }
+        if (filesById.isEmpty()) return;
+
+        //los ficheros sin job se dejan: createJob guarda el fichero antes de insertar el job
+        for (CarImportJobEntity job : jobRepository.findAllById(filesById.keySet())) {
+            if (isFinished(job.getStatus())) {
+                log.info("Deleting leftover file of finished import job {}", job.getId());
+                deleteQuietly(filesById.get(job.getId()));
+            }
+        }
+    }
+
+    private static void deleteAfterCommit(Path path) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteQuietly(path);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteQuietly(path);
+            }
+        });
+    }
+
+    private void finishJob(String id, ImportJobStatus status, String error) {
+        jobRepository.findById(id).ifPresent(job -> {
+            job.setStatus(status);
+            job.setFinishedAt(Instant.now());
+            if (error != null) {
+                job.setErrors(job.getErrors() == null ? error : job.getErrors() + "\n" + error);
+            }
+            jobRepository.save(job);
+        });
+    }
+
+    private CarImportJobEntity findJobEntityById(String id) throws ImportJobNotFoundException {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import job with ID " + id + " was not found"));
+    }
+
+    private static boolean isFinished(ImportJobStatus status) {
+        return !PENDING_STATUSES.contains(status);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", path, e);
+        }
+    }
+
+    /*
+    Guarda el progreso del job dentro de la transaccion de cada bloque y de paso lee si se ha pedido cancelarlo,
+    aunque la cancelacion haya llegado a otra instancia.
+     */
+    private class JobProgressListener implements CarImportListener {
+
+        private final String jobId;
+        private volatile boolean cancelled;
+
+        private JobProgressListener(String jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void onChunkCommitted(long recordsProcessed, CarImportResult progress) {
+            if (jobRepository.renewLease(jobId, instanceId, Instant.now()) == 0) {
+                throw new LeaseLostException();
+            }
+            jobRepository.findById(jobId).ifPresent(job -> {
+                jobConverter.updateProgress(job, recordsProcessed, progress);
+                cancelled = job.isCancelRequested();
+                jobRepository.save(job);
+            });
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    //se lanza dentro de la transaccion del bloque, para deshacerlo si el job ya no es de esta instancia
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
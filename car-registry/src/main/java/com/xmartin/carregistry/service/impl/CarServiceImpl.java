@@ -1,38 +1,65 @@
 package com.xmartin.carregistry.service.impl;
 
 
-import com.xmartin.carregistry.client.BrandClient;
+import com.xmartin.carregistry.client.BrandCache;
 import com.xmartin.carregistry.domain.Brand;
 import com.xmartin.carregistry.domain.Car;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.domain.CarSearchCriteria;
+import com.xmartin.carregistry.domain.CarStats;
+import com.xmartin.carregistry.domain.CarStatsDimension;
+import com.xmartin.carregistry.domain.CarStatsRow;
+import com.xmartin.carregistry.domain.CarSummary;
+import com.xmartin.carregistry.domain.CarVersion;
+import com.xmartin.carregistry.domain.CarWindow;
+import com.xmartin.carregistry.domain.ResourceVersion;
 import com.xmartin.carregistry.entity.CarEntity;
 import com.xmartin.carregistry.exceptions.BrandNotFoundException;
 import com.xmartin.carregistry.exceptions.CarNotFoundException;
 import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.exceptions.InvalidCursorException;
 import com.xmartin.carregistry.repository.CarRepository;
+import com.xmartin.carregistry.repository.CarSpecifications;
 import com.xmartin.carregistry.service.CarService;
 import com.xmartin.carregistry.service.converters.CarConverter;
+import com.xmartin.carregistry.service.converters.CarCursorConverter;
+import com.xmartin.carregistry.service.csv.CarCsvImporter;
+import com.xmartin.carregistry.service.csv.CsvWriter;
+import com.xmartin.carregistry.service.stats.CarStatsCube;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -40,8 +67,16 @@ import java.util.stream.Collectors;
 public class CarServiceImpl implements CarService {
 
     private final CarRepository carRepository;
-    private final BrandClient brandClient;
+    private final BrandCache brandCache;
     private final CarConverter carConverter;
+    private final EntityManager entityManager;
+    private final CarCsvImporter carCsvImporter;
+    private final CarCursorConverter cursorConverter;
+    private final TransactionTemplate transactionTemplate;
+    private final CarStatsCube carStatsCube;
+
+    @Value("${car-delete.chunk-size:5000}")
+    private int deleteChunkSize;
 
     private static final String[] HEADERS = {"brand", "model", "description", "colour", "fuel_type",
             "mileage", "num_doors", "price", "year"};
@@ -53,7 +88,9 @@ public class CarServiceImpl implements CarService {
         CarEntity newCar = carConverter.toEntity(car);
         newCar.setBrandId(brand.getId());
 
-        Car savedCar = carConverter.toCar(carRepository.save(newCar));
+        CarEntity savedEntity = carRepository.save(newCar);
+        carStatsCube.recordAfterCommit(List.of(), List.of(CarStatsCube.facts(savedEntity)));
+        Car savedCar = carConverter.toCar(savedEntity);
         savedCar.setBrand(brand);
         return savedCar;
     }
@@ -62,12 +99,125 @@ public class CarServiceImpl implements CarService {
     @Async
     @Transactional
     public CompletableFuture<List<Car>> getCars(Pageable pageable) throws BrandNotFoundException {
-        List<Brand> brandList = getAllBrands();
-        List<Car> carList = carConverter.toCarList(carRepository.findAll(pageable).stream().toList());
+        List<Car> carList = carConverter.toCarList(carRepository.findAllBy(pageable).getContent());
+        setBrands(carList);
+        return CompletableFuture.completedFuture(carList);
+    }
 
-        Map<Integer, Brand> brandMap = convertToBrandMap(Brand::getId, brandList);
+    @Override
+    @Async
+    @Transactional(readOnly = true)
+    public CompletableFuture<List<CarSummary>> getCarSummaries(Pageable pageable) {
+        List<CarSummary> summaries = carRepository.findAllSummaries(pageable);
+
+        Map<Integer, Brand> brandMap = brandCache.getBrandsById(summaries.stream().map(CarSummary::getBrandId).collect(Collectors.toSet()));
+        summaries.forEach(summary -> {
+            Brand brand = brandMap.get(summary.getBrandId());
+            summary.setBrandName(brand == null ? null : brand.getName());
+            summary.setBrandVersion(brand == null ? null : brand.getVersion());
+            summary.setBrandLastModified(brand == null ? null : brand.getLastModified());
+        });
+        return CompletableFuture.completedFuture(summaries);
+    }
 
-        carList.forEach(car -> car.setBrand(brandMap.get(car.getBrand().getId())));
+    /*
+    Estadisticas agregadas desde el cubo en memoria, sin consultar la tabla car. Los nombres de marca salen de la
+    cache de marcas.
+     */
+    @Override
+    public List<CarStats> getCarStats(Set<CarStatsDimension> groupBy) {
+        List<CarStatsRow> rows = carStatsCube.rollUp(groupBy);
+        Map<Integer, Brand> brandMap = groupBy.contains(CarStatsDimension.BRAND)
+                ? brandCache.getBrandsById(rows.stream().map(CarStatsRow::getBrandId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                : Map.of();
+
+        return rows.stream().map(row -> {
+            Brand brand = row.getBrandId() == null ? null : brandMap.get(row.getBrandId());
+            return CarStats.builder()
+                    .brandId(row.getBrandId())
+                    .brandName(brand == null ? null : brand.getName())
+                    .fuelType(row.getFuelType())
+                    .year(row.getYear())
+                    .count(row.getCount())
+                    .averagePrice(row.getPriceCount() == 0 ? null : row.getPriceSum() / row.getPriceCount())
+                    .averageMileage(row.getMileageCount() == 0 ? null : (double) row.getMileageSum() / row.getMileageCount())
+                    .build();
+        }).toList();
+    }
+
+    /*
+    Versiones para las peticiones condicionales. Solo se leen id, marca, version y fecha de los coches, y la version
+    de la marca sale de la cache, asi que un 304 no carga ni mapea ningun coche. La cache puede ir por detras de
+    brand-service hasta brand-cache.refresh-after-write, y durante ese tiempo puede responderse 304 aunque la
+    marca haya cambiado.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ResourceVersion getCarsVersion(Pageable pageable) {
+        return toResourceVersion(withCachedBrands(carRepository.findAllVersions(pageable)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> getCarVersion(Integer id) {
+        return carRepository.findVersionById(id).map(carVersion -> toResourceVersion(withCachedBrands(List.of(carVersion))));
+    }
+
+    //version de una pagina ya cargada, con las mismas marcas que lleva la respuesta y sin consultar nada
+    @Override
+    public ResourceVersion getCarsVersion(List<Car> cars) {
+        return toResourceVersion(cars.stream()
+                .map(car -> new VersionedCar(car.getId(), car.getVersion(), car.getLastModified(),
+                        car.getBrand() == null ? null : car.getBrand().getVersion(),
+                        car.getBrand() == null ? null : car.getBrand().getLastModified()))
+                .toList());
+    }
+
+    @Override
+    public ResourceVersion getCarSummariesVersion(List<CarSummary> summaries) {
+        return toResourceVersion(summaries.stream()
+                .map(summary -> new VersionedCar(summary.getId(), summary.getVersion(), summary.getLastModified(),
+                        summary.getBrandVersion(), summary.getBrandLastModified()))
+                .toList());
+    }
+
+    @Override
+    @Async
+    @Transactional(readOnly = true)
+    public CompletableFuture<CarWindow> getCarsAfter(String cursor, String sortKey, int size) throws InvalidCursorException {
+        if (!cursorConverter.isAllowedSortKey(sortKey)) {
+            throw new InvalidCursorException("Sorting by " + sortKey + " is not allowed");
+        }
+
+        Window<CarEntity> window = carRepository.findAllBy(cursorConverter.toScrollPosition(sortKey, cursor),
+                cursorConverter.toSort(sortKey), Limit.of(size));
+
+        List<Car> carList = carConverter.toCarList(window.getContent());
+        setBrands(carList);
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? cursorConverter.toCursor(sortKey, window.positionAt(window.size() - 1))
+                : null;
+        return CompletableFuture.completedFuture(CarWindow.builder().cars(carList).nextCursor(nextCursor).build());
+    }
+
+    @Override
+    @Async
+    @Transactional(readOnly = true)
+    public CompletableFuture<List<Car>> searchCars(CarSearchCriteria criteria, Pageable pageable) {
+        Integer brandId = null;
+        if (criteria.getBrand() != null) {
+            Optional<Brand> brand = brandCache.getBrandByName(criteria.getBrand());
+            //si la marca no existe no puede haber coches que cumplan el filtro
+            if (brand.isEmpty()) return CompletableFuture.completedFuture(List.of());
+            brandId = brand.get().getId();
+        }
+
+        Pageable indexedPage = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                CarSpecifications.indexedSort(criteria, brandId));
+        List<Car> carList = carConverter.toCarList(
+                carRepository.findSlice(CarSpecifications.matching(criteria, brandId), indexedPage).getContent());
+        setBrands(carList);
         return CompletableFuture.completedFuture(carList);
     }
 
@@ -83,14 +233,16 @@ public class CarServiceImpl implements CarService {
     @Override
     @Transactional
     public Car updateCar(Car car, Integer id) throws CarNotFoundException, BrandNotFoundException {
-        ensureCarExists(id);
+        //se actualiza la entidad cargada para que Hibernate compruebe e incremente la version
+        CarEntity carEntity = findCarEntityById(id);
 
         Brand brand = getBrandByName(car.getBrand().getName());
-        CarEntity updatedCarEntity = carConverter.toEntity(car);
-        updatedCarEntity.setId(id);
-        updatedCarEntity.setBrandId(brand.getId());
+        CarStatsCube.CarFacts before = CarStatsCube.facts(carEntity);
+        carConverter.updateEntity(carEntity, car);
+        carEntity.setBrandId(brand.getId());
+        carStatsCube.recordAfterCommit(List.of(before), List.of(CarStatsCube.facts(carEntity)));
 
-        Car updatedCar = carConverter.toCar(carRepository.save(updatedCarEntity));
+        Car updatedCar = carConverter.toCar(carRepository.saveAndFlush(carEntity));
         updatedCar.setBrand(brand);
         return updatedCar;
     }
@@ -100,91 +252,144 @@ public class CarServiceImpl implements CarService {
     public void deleteCar(Integer id) throws CarNotFoundException {
         CarEntity carEntity = findCarEntityById(id);
         carRepository.delete(carEntity);
+        carStatsCube.recordAfterCommit(List.of(CarStatsCube.facts(carEntity)), List.of());
     }
 
+    /*
+    Borra los coches de la marca por bloques de deleteChunkSize filas, cada bloque en su propia transaccion, para
+    no cargar las entidades ni mantener una transaccion enorme con marcas de muchos coches. Devuelve cuantos
+    coches se han borrado.
+     */
     @Override
-    @Transactional
-    public void deleteAllCarsByBrandId(Integer brandId) {
-        carRepository.deleteAllByBrandId(brandId);
+    public long deleteAllCarsByBrandId(Integer brandId) {
+        long deleted = 0;
+        int deletedInChunk;
+        do {
+            deletedInChunk = Objects.requireNonNull(transactionTemplate.execute(
+                    status -> carRepository.deleteChunkByBrandId(brandId, deleteChunkSize)));
+            deleted += deletedInChunk;
+        } while (deletedInChunk == deleteChunkSize);
+        carStatsCube.removeBrandAfterCommit(brandId);
+
+        log.info("Deleted {} cars from brand {}", deleted, brandId);
+        return deleted;
+    }
+
+    //lo usa brand-service al entregar los borrados de marcas; repetir la llamada no tiene efecto
+    @Override
+    public long deleteAllCarsByBrandIds(List<Integer> brandIds) {
+        return brandIds.stream().distinct().mapToLong(this::deleteAllCarsByBrandId).sum();
     }
 
     @Override
     @Async
     @Transactional
     public CompletableFuture<List<Car>> addCars(List<Car> cars) throws BrandNotFoundException {
-        Map<String, Brand> brandMap = getBrandMap(Brand::getName);
+        Map<String, Brand> brandMap = brandCache.getBrandsByName(cars.stream().map(car -> car.getBrand().getName()).toList());
 
         for (Car car : cars) {
-            Brand brand = brandMap.get(car.getBrand().getName());
+            Brand brand = brandMap.get(BrandCache.normalize(car.getBrand().getName()));
             if (brand == null) {
                 throw new BrandNotFoundException("Some brand not found");
             }
             car.setBrand(brand);
         }
 
-        List<CarEntity> carEntities = carConverter.toEntityList(cars);
-        List<Car> savedCars = carRepository.saveAll(carEntities).stream().map(carConverter::toCar).toList();
+        List<CarEntity> carEntities = carRepository.saveAll(carConverter.toEntityList(cars));
+        carStatsCube.recordAfterCommit(List.of(), CarStatsCube.facts(carEntities));
+        List<Car> savedCars = carEntities.stream().map(carConverter::toCar).toList();
 
-        Map<Integer, Brand> brandIdMap = getBrandMap(Brand::getId);
+        Map<Integer, Brand> brandIdMap = brandMap.values().stream().collect(Collectors.toMap(Brand::getId, Function.identity(), (a, b) -> a));
         savedCars.forEach(car -> car.setBrand(brandIdMap.get(car.getBrand().getId())));
 
         return CompletableFuture.completedFuture(savedCars);
     }
 
     @Override
-    public List<Car> uploadCars(MultipartFile file) throws BrandNotFoundException, FailedToLoadCarsException {
-        List<CarEntity> carEntityList = new ArrayList<>();
-        try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
-             CSVParser csvParser = new CSVParser(fileReader, CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
-
-            for (CSVRecord csvRecord : csvParser.getRecords()) {
-                Brand brand = getBrandByName(csvRecord.get("brand"));
-                CarEntity carEntity = CarEntity.builder()
-                        .brandId(brand.getId())
-                        .model(csvRecord.get("model"))
-                        .description(csvRecord.get("description"))
-                        .colour(csvRecord.get("colour"))
-                        .fuelType(csvRecord.get("fuel_type"))
-                        .mileage(Integer.valueOf(csvRecord.get("mileage")))
-                        .numDoors(Integer.valueOf(csvRecord.get("num_doors")))
-                        .price(Double.valueOf(csvRecord.get("price")))
-                        .year(Integer.valueOf(csvRecord.get("year")))
-                        .build();
-
-                carEntityList.add(carEntity);
-            }
-            return carConverter.toCarList(carRepository.saveAll(carEntityList));
-
+    public CarImportResult uploadCars(MultipartFile file) throws FailedToLoadCarsException {
+        try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            return carCsvImporter.importCars(fileReader);
         } catch (IOException e) {
             log.error("Failed to upload cars", e);
             throw new FailedToLoadCarsException("Failed to upload cars");
         }
     }
 
+    /*
+    Exporta los coches escribiendo directamente sobre el stream de salida. Las marcas se resuelven una sola vez
+    al principio y los coches se leen con un cursor, asi que la memoria usada no depende del tamaño de la tabla.
+     */
     @Override
-    public String downloadCars() throws BrandNotFoundException {
-        List<CarEntity> carEntityList = carRepository.findAll();
-        StringBuilder csvContent = new StringBuilder();
-        csvContent.append(String.join(",", HEADERS)).append("\n");
-
-        for (CarEntity carEntity : carEntityList) {
-            Brand brand = getBrandById(carEntity.getBrandId());
-            csvContent.append(String.format("%s,%s,%s,%s,%s,%d,%d,%f,%d%n",
-                    brand.getName(),
-                    carEntity.getModel(),
-                    carEntity.getDescription(),
-                    carEntity.getColour(),
-                    carEntity.getFuelType(),
-                    carEntity.getMileage(),
-                    carEntity.getNumDoors(),
-                    carEntity.getPrice(),
-                    carEntity.getYear()));
+    @Transactional(readOnly = true)
+    public void downloadCars(OutputStream outputStream) throws IOException {
+        Map<Integer, Brand> brandMap = brandCache.getBrandsById(carRepository.findDistinctBrandIds());
+
+        CsvWriter csvWriter = new CsvWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+        csvWriter.writeRow((Object[]) HEADERS);
+
+        try (Stream<CarEntity> carStream = carRepository.streamAll()) {
+            Iterator<CarEntity> iterator = carStream.iterator();
+            while (iterator.hasNext()) {
+                CarEntity carEntity = iterator.next();
+                Brand brand = brandMap.get(carEntity.getBrandId());
+                if (brand == null) {
+                    log.warn("Brand with ID {} was not found, exporting car {} without brand", carEntity.getBrandId(), carEntity.getId());
+                }
+
+                csvWriter.writeRow(
+                        brand == null ? null : brand.getName(),
+                        carEntity.getModel(),
+                        carEntity.getDescription(),
+                        carEntity.getColour(),
+                        carEntity.getFuelType(),
+                        carEntity.getMileage(),
+                        carEntity.getNumDoors(),
+                        carEntity.getPrice(),
+                        carEntity.getYear());
+
+                //sacamos la entidad del contexto de persistencia para que no crezca con cada fila
+                entityManager.detach(carEntity);
+            }
         }
-        return csvContent.toString();
+        csvWriter.flush();
     }
 
     // Métodos auxiliares privados
 
+    private void setBrands(List<Car> carList) {
+        Map<Integer, Brand> brandMap = brandCache.getBrandsById(carList.stream().map(car -> car.getBrand().getId()).collect(Collectors.toSet()));
+        carList.forEach(car -> car.setBrand(brandMap.get(car.getBrand().getId())));
+    }
+
+    private List<VersionedCar> withCachedBrands(List<CarVersion> carVersions) {
+        Map<Integer, Brand> brandMap = brandCache.getBrandsById(carVersions.stream().map(CarVersion::getBrandId).collect(Collectors.toSet()));
+        return carVersions.stream().map(carVersion -> {
+            Brand brand = brandMap.get(carVersion.getBrandId());
+            return new VersionedCar(carVersion.getId(), carVersion.getVersion(), carVersion.getLastModified(),
+                    brand == null ? null : brand.getVersion(), brand == null ? null : brand.getLastModified());
+        }).toList();
+    }
+
+    /*
+    El cambio de marca de un coche sube su version, asi que basta con la version del coche y la de su marca; no se
+    usa el id de la marca para que la huella de una pagina cargada (con la marca ya resuelta o a null si no existe)
+    sea la misma que la de getCarsVersion(Pageable).
+     */
+    private static ResourceVersion toResourceVersion(List<VersionedCar> cars) {
+        StringBuilder fingerprint = new StringBuilder();
+        Instant lastModified = Instant.EPOCH;
+        for (VersionedCar car : cars) {
+            fingerprint.append(car.id()).append(':').append(car.version()).append(':').append(car.brandVersion()).append(';');
+            lastModified = Stream.of(lastModified, car.lastModified(), car.brandLastModified())
+                    .filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(lastModified);
+        }
+
+        return ResourceVersion.builder()
+                .tag(DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)))
+                .lastModified(lastModified)
+                .build();
+    }
+
     private Car findCarById(Integer id) throws CarNotFoundException {
         return carRepository.findById(id).map(carConverter::toCar)
                 .orElseThrow(() -> new CarNotFoundException("Car with ID " + id + " was not found"));
@@ -195,33 +400,16 @@ public class CarServiceImpl implements CarService {
                 .orElseThrow(() -> new CarNotFoundException("Car with ID " + id + " was not found"));
     }
 
-    private void ensureCarExists(Integer id) throws CarNotFoundException {
-        if (!carRepository.existsById(id)) {
-            throw new CarNotFoundException("Car with ID " + id + " was not found");
-        }
-    }
-
     private Brand getBrandByName(String name) throws BrandNotFoundException {
-        return brandClient.getBrandByName(name)
+        return brandCache.getBrandByName(name)
                 .orElseThrow(() -> new BrandNotFoundException("Brand with name: " + name + " was not found"));
     }
 
     private Brand getBrandById(Integer id) throws BrandNotFoundException {
-        return brandClient.getBrandById(id)
+        return brandCache.getBrandById(id)
                 .orElseThrow(() -> new BrandNotFoundException("Brand with ID " + id + " was not found"));
     }
 
-    private List<Brand> getAllBrands() throws BrandNotFoundException {
-        return Optional.ofNullable(brandClient.getAllBrands())
-                .orElseThrow(() -> new BrandNotFoundException("No brands found"));
-    }
-
-    private <K> Map<K, Brand> getBrandMap(Function<Brand, K> keyMapper) throws BrandNotFoundException {
-        List<Brand> brandList = getAllBrands();
-        return convertToBrandMap(keyMapper, brandList);
-    }
-
-    private <K> Map<K, Brand> convertToBrandMap(Function<Brand, K> keyMapper, List<Brand> brandList) {
-        return brandList.stream().collect(Collectors.toMap(keyMapper, Function.identity()));
+    private record VersionedCar(Integer id, Long version, Instant lastModified, Long brandVersion, Instant brandLastModified) {
     }
-}
\ No newline at end of file
+}
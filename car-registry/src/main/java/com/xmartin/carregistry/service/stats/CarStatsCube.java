@@ -0,0 +1,251 @@
+package com.xmartin.carregistry.service.stats;
+
+import com.xmartin.carregistry.domain.CarStatsDimension;
+import com.xmartin.carregistry.domain.CarStatsRow;
+import com.xmartin.carregistry.entity.CarEntity;
+import com.xmartin.carregistry.repository.CarRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*
+Estadisticas de coches precalculadas en memoria: una celda por cada combinacion de marca, combustible y año,
+cargadas con un GROUP BY sobre car. Las consultas suman las celdas por los campos pedidos, sin ir a la bbdd.
+Las altas, modificaciones y bajas de esta instancia se aplican como incrementos al hacer commit, y el cubo se
+reconstruye entero cada car-stats.rebuild-interval-ms para recoger las escrituras hechas por otras instancias: los
+cambios de otra instancia tardan en verse como mucho ese intervalo mas lo que dure el GROUP BY.
+El cubo se construye en segundo plano al arrancar; hasta que esta listo las consultas hacen el GROUP BY en la bbdd,
+igual que si no hubiera cubo, en lugar de esperar al rebuild en el hilo de la peticion.
+Un rebuild no pierde ni cuenta dos veces los incrementos que se confirman mientras corre: los commits tienen
+commitLock en lectura y el rebuild lo coge en escritura solo para abrir su snapshot, asi que cada commit queda
+antes del snapshot (ya esta en el GROUP BY) o despues (se guarda en replay y se aplica al cubo nuevo).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CarStatsCube {
+
+    private static final Comparator<CarStatsRow> ROW_ORDER = Comparator
+            .comparing(CarStatsRow::getBrandId, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+            .thenComparing(CarStatsRow::getFuelType, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(CarStatsRow::getYear, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+
+    private final CarRepository carRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final Object replayMonitor = new Object();
+
+    private volatile Map<CellKey, Cell> cells;
+    //incrementos confirmados despues del snapshot del rebuild en curso; null si no hay rebuild
+    private List<Consumer<Map<CellKey, Cell>>> replay;
+
+    /*
+    Agrega las celdas por los campos de groupBy; los demas campos de las filas devueltas quedan a null.
+    Si el cubo aun no esta construido se agrega el GROUP BY de la bbdd sin guardarlo.
+     */
+    public List<CarStatsRow> rollUp(Set<CarStatsDimension> groupBy) {
+        Map<CellKey, Cell> current = cells;
+        if (current == null) current = toCells(carRepository.aggregateStats());
+
+        Map<CellKey, Cell> result = new HashMap<>();
+        current.forEach((key, cell) -> result.merge(key.project(groupBy), cell, Cell::plus));
+
+        return result.entrySet().stream()
+                .map(entry -> entry.getValue().toRow(entry.getKey()))
+                .sorted(ROW_ORDER)
+                .toList();
+    }
+
+    public static CarFacts facts(CarEntity carEntity) {
+        return new CarFacts(carEntity.getBrandId(), carEntity.getFuelType(), carEntity.getYear(),
+                carEntity.getPrice(), carEntity.getMileage());
+    }
+
+    public static List<CarFacts> facts(List<CarEntity> carEntities) {
+        return carEntities.stream().map(CarStatsCube::facts).toList();
+    }
+
+    /*
+    Resta los coches de removed y suma los de added cuando termine la transaccion actual, solo si hace commit.
+    Sin transaccion activa se aplica en el momento.
+     */
+    public void recordAfterCommit(List<CarFacts> removed, List<CarFacts> added) {
+        afterCommit(current -> {
+            removed.forEach(car -> merge(current, car, -1));
+            added.forEach(car -> merge(current, car, 1));
+        });
+    }
+
+    public void removeBrandAfterCommit(Integer brandId) {
+        afterCommit(current -> current.keySet().removeIf(key -> brandId.equals(key.brandId())));
+    }
+
+    //si falla, las consultas siguen yendo a la bbdd hasta el siguiente rebuild programado
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        scheduledRebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${car-stats.rebuild-interval-ms:60000}",
+            initialDelayString = "${car-stats.rebuild-interval-ms:60000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to rebuild car stats", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<CellKey, Cell> rebuilt;
+        try {
+            List<CarStatsRow> rows = snapshotTransaction().execute(status -> {
+                openSnapshot();
+                return carRepository.aggregateStats();
+            });
+            rebuilt = toCells(Objects.requireNonNull(rows));
+            synchronized (replayMonitor) {
+                replay.forEach(change -> change.accept(rebuilt));
+                cells = rebuilt;
+            }
+        } finally {
+            synchronized (replayMonitor) {
+                replay = null;
+            }
+        }
+        log.debug("Car stats rebuilt with {} cells in {} ms", rebuilt.size(), System.currentTimeMillis() - start);
+    }
+
+    // Métodos auxiliares privados
+
+    private static Map<CellKey, Cell> toCells(List<CarStatsRow> rows) {
+        Map<CellKey, Cell> cells = new ConcurrentHashMap<>();
+        for (CarStatsRow row : rows) {
+            cells.put(new CellKey(row.getBrandId(), row.getFuelType(), row.getYear()),
+                    new Cell(row.getCount(), row.getPriceSum(), row.getPriceCount(), row.getMileageSum(), row.getMileageCount()));
+        }
+        return cells;
+    }
+
+    /*
+    Abre el snapshot de la transaccion del rebuild con una lectura sin commits a medias: los commits que ya habian
+    empezado terminan (y aplican su incremento al cubo viejo) antes de coger el lock, y los que empiecen despues
+    no los vera el GROUP BY, asi que se guardan para aplicarlos al cubo nuevo.
+     */
+    private void openSnapshot() {
+        commitLock.writeLock().lock();
+        try {
+            carRepository.openSnapshot();
+            synchronized (replayMonitor) {
+                replay = new ArrayList<>();
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    //transaccion nueva aunque haya una abierta, para que el snapshot empiece en openSnapshot
+    private TransactionTemplate snapshotTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private void apply(Consumer<Map<CellKey, Cell>> change) {
+        synchronized (replayMonitor) {
+            Map<CellKey, Cell> current = cells;
+            if (current != null) change.accept(current);
+            if (replay != null) replay.add(change);
+        }
+    }
+
+    private static void merge(Map<CellKey, Cell> cells, CarFacts car, int sign) {
+        CellKey key = new CellKey(car.brandId(), car.fuelType(), car.year());
+        Cell delta = new Cell(sign,
+                car.price() == null ? 0 : sign * car.price(), car.price() == null ? 0 : sign,
+                car.mileage() == null ? 0 : (long) sign * car.mileage(), car.mileage() == null ? 0 : sign);
+        //compute es atomico por clave; las celdas que se quedan sin coches se eliminan
+        cells.compute(key, (k, cell) -> {
+            Cell merged = cell == null ? delta : cell.plus(delta);
+            return merged.count() <= 0 ? null : merged;
+        });
+    }
+
+    //el lock se coge antes del commit en bbdd y se suelta despues de aplicar el incremento, haga commit o no
+    private void afterCommit(Consumer<Map<CellKey, Cell>> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitLock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) apply(change);
+                } finally {
+                    if (locked) commitLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    //valores de un coche que afectan a las estadisticas, copiados antes de que cambie la entidad
+    public record CarFacts(Integer brandId, String fuelType, Integer year, Double price, Integer mileage) {
+    }
+
+    private record CellKey(Integer brandId, String fuelType, Integer year) {
+
+        CellKey project(Set<CarStatsDimension> groupBy) {
+            return new CellKey(groupBy.contains(CarStatsDimension.BRAND) ? brandId : null,
+                    groupBy.contains(CarStatsDimension.FUEL_TYPE) ? fuelType : null,
+                    groupBy.contains(CarStatsDimension.YEAR) ? year : null);
+        }
+    }
+
+    private record Cell(long count, double priceSum, long priceCount, long mileageSum, long mileageCount) {
+
+        Cell plus(Cell other) {
+            return new Cell(count + other.count, priceSum + other.priceSum, priceCount + other.priceCount,
+                    mileageSum + other.mileageSum, mileageCount + other.mileageCount);
+        }
+
+        CarStatsRow toRow(CellKey key) {
+            return new CarStatsRow(key.brandId(), key.fuelType(), key.year(), count, priceSum, priceCount,
+                    mileageSum, mileageCount);
+        }
+    }
+}
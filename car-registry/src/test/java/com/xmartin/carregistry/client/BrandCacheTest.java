@@ -0,0 +1,91 @@
+package com.xmartin.carregistry.client;
+
+import com.xmartin.carregistry.domain.Brand;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BrandCacheTest {
+
+    private static final Brand SEAT = Brand.builder().id(1).name("Seat").build();
+
+    private final BrandClient brandClient = mock(BrandClient.class);
+
+    @Test
+    void brandLoadedByIdIsServedByNameWithoutCallingBrandService() {
+        when(brandClient.getBrandById(1)).thenReturn(Optional.of(SEAT));
+        BrandCache brandCache = newBrandCache();
+
+        assertEquals(Optional.of(SEAT), brandCache.getBrandById(1));
+        assertEquals(Optional.of(SEAT), brandCache.getBrandByName(" SEAT "));
+
+        verify(brandClient, never()).getBrandByName(anyString());
+    }
+
+    @Test
+    void brandsLoadedInBatchByNameAreServedById() {
+        when(brandClient.getBrandsByNames(any())).thenReturn(List.of(SEAT));
+        BrandCache brandCache = newBrandCache();
+
+        assertEquals(Map.of("seat", SEAT), brandCache.getBrandsByName(List.of("Seat", "Unknown")));
+        assertEquals(Optional.of(SEAT), brandCache.getBrandById(1));
+
+        verify(brandClient, never()).getBrandById(anyInt());
+    }
+
+    @Test
+    void concurrentLoadsOfTheSameBrandByIdAndByNameDoNotBlockEachOther() throws Exception {
+        //las dos cargas quedan en curso a la vez antes de devolver la marca
+        CountDownLatch bothLoading = new CountDownLatch(2);
+        when(brandClient.getBrandById(1)).thenAnswer(invocation -> awaitAndReturn(bothLoading));
+        when(brandClient.getBrandByName("seat")).thenAnswer(invocation -> awaitAndReturn(bothLoading));
+        BrandCache brandCache = newBrandCache();
+
+        CompletableFuture<Optional<Brand>> byId = CompletableFuture.supplyAsync(() -> brandCache.getBrandById(1));
+        CompletableFuture<Optional<Brand>> byName = CompletableFuture.supplyAsync(() -> brandCache.getBrandByName("Seat"));
+
+        assertEquals(Optional.of(SEAT), byId.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of(SEAT), byName.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void missingBrandIsCachedAsAbsent() {
+        when(brandClient.getBrandsByIds(any())).thenReturn(List.of());
+        BrandCache brandCache = newBrandCache();
+
+        assertTrue(brandCache.getBrandsById(List.of(7)).isEmpty());
+        assertTrue(brandCache.getBrandById(7).isEmpty());
+
+        verify(brandClient, never()).getBrandById(anyInt());
+    }
+
+    // Métodos auxiliares privados
+
+    private BrandCache newBrandCache() {
+        return new BrandCache(brandClient, new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofSeconds(30));
+    }
+
+    private static Optional<Brand> awaitAndReturn(CountDownLatch bothLoading) throws InterruptedException {
+        bothLoading.countDown();
+        bothLoading.await(5, TimeUnit.SECONDS);
+        return Optional.of(SEAT);
+    }
+}
@@ -0,0 +1,69 @@
+package com.xmartin.carregistry.controller;
+
+import com.xmartin.carregistry.controller.mappers.BrandMapper;
+import com.xmartin.carregistry.controller.mappers.CarMapper;
+import com.xmartin.carregistry.domain.Brand;
+import com.xmartin.carregistry.domain.Car;
+import com.xmartin.carregistry.domain.ResourceVersion;
+import com.xmartin.carregistry.service.CarService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarControllerTest {
+
+    private static final ResourceVersion VERSION = new ResourceVersion("abc", Instant.parse("2024-06-01T10:00:00Z"));
+
+    private final CarService service = mock(CarService.class);
+    private final CarController controller = new CarController(service, new CarMapper(new BrandMapper()));
+
+    @Test
+    void unconditionalListIsOneQueryAndTagsThePageItLoaded() throws Exception {
+        List<Car> cars = List.of(Car.builder().id(1).brand(Brand.builder().id(3).name("Seat").build()).build());
+        when(service.getCars(any())).thenReturn(CompletableFuture.completedFuture(cars));
+        when(service.getCarsVersion(anyList())).thenReturn(VERSION);
+
+        ResponseEntity<?> response = controller.getCars(0, 10, null, "id", "full", request(null)).get();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        verify(service, never()).getCarsVersion(any(Pageable.class));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsA304WithoutLoadingThePage() throws Exception {
+        when(service.getCarsVersion(any(Pageable.class))).thenReturn(VERSION);
+
+        ResponseEntity<?> response = controller.getCars(0, 10, null, "id", "full", request("\"abc\"")).get();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(service, never()).getCars(any());
+    }
+
+    // Métodos auxiliares privados
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,129 @@
+package com.xmartin.carregistry.repository;
+
+import com.xmartin.carregistry.domain.CarSearchCriteria;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Comprueba que las busquedas de GET /cars/search usan los indices del changeset 4. La parte con EXPLAIN necesita
+un MySQL de pruebas (CAR_REGISTRY_EXPLAIN_DB_URL, y opcionalmente _USER y _PASSWORD): aplica el changelog, llena
+la tabla car si tiene menos de ROWS filas y falla si alguna busqueda recorre la clave primaria o la tabla entera.
+ */
+class CarSearchIndexTest {
+
+    private static final int ROWS = 100_000;
+    private static final int BRAND_ID = 7;
+
+    @Test
+    void sortFollowsTheIndexOfTheFilters() {
+        assertEquals(Sort.by("year", "id"), CarSpecifications.indexedSort(criteria().build(), BRAND_ID));
+        assertEquals(Sort.by("price", "id"), CarSpecifications.indexedSort(criteria().minPrice(1.0).build(), BRAND_ID));
+        assertEquals(Sort.by("year", "id"), CarSpecifications.indexedSort(criteria().minPrice(1.0).maxYear(2020).build(), BRAND_ID));
+        assertEquals(Sort.by("year", "id"), CarSpecifications.indexedSort(criteria().fuelType("diesel").minPrice(1.0).build(), null));
+        assertEquals(Sort.by("year", "id"), CarSpecifications.indexedSort(criteria().minYear(2010).minMileage(1).build(), null));
+        assertEquals(Sort.by("price", "id"), CarSpecifications.indexedSort(criteria().maxPrice(1.0).minMileage(1).build(), null));
+        assertEquals(Sort.by("mileage", "id"), CarSpecifications.indexedSort(criteria().maxMileage(1).colour("red").build(), null));
+        assertEquals(Sort.by("id"), CarSpecifications.indexedSort(criteria().colour("red").numDoors(5).build(), null));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CAR_REGISTRY_EXPLAIN_DB_URL", matches = ".+")
+    void searchesUseTheSecondaryIndexes() throws Exception {
+        try (Connection connection = DriverManager.getConnection(System.getenv("CAR_REGISTRY_EXPLAIN_DB_URL"),
+                System.getenv().getOrDefault("CAR_REGISTRY_EXPLAIN_DB_USER", "root"),
+                System.getenv().getOrDefault("CAR_REGISTRY_EXPLAIN_DB_PASSWORD", ""))) {
+            migrate(connection);
+            fill(connection);
+
+            for (Map.Entry<String, CarSearchCriteria> search : searches().entrySet()) {
+                CarSearchCriteria criteria = search.getValue();
+                Integer brandId = search.getKey().contains("brand_id") ? BRAND_ID : null;
+                String sql = "SELECT * FROM car c WHERE " + search.getKey()
+                        + " ORDER BY " + orderBy(CarSpecifications.indexedSort(criteria, brandId)) + " LIMIT 20, 11";
+                assertUsesSecondaryIndex(connection, sql);
+            }
+        }
+    }
+
+    // Métodos auxiliares privados
+
+    private static CarSearchCriteria.CarSearchCriteriaBuilder criteria() {
+        return CarSearchCriteria.builder();
+    }
+
+    //condiciones que genera CarSpecifications.matching para cada combinacion de filtros
+    private static Map<String, CarSearchCriteria> searches() {
+        Map<String, CarSearchCriteria> searches = new LinkedHashMap<>();
+        searches.put("c.brand_id = 7", criteria().build());
+        searches.put("c.brand_id = 7 AND c.year BETWEEN 2010 AND 2012", criteria().minYear(2010).maxYear(2012).build());
+        searches.put("c.brand_id = 7 AND c.price BETWEEN 10000 AND 12000", criteria().minPrice(10000.0).maxPrice(12000.0).build());
+        searches.put("c.brand_id = 7 AND c.year >= 2010 AND c.price <= 12000", criteria().minYear(2010).maxPrice(12000.0).build());
+        searches.put("c.fuel_type = 'diesel'", criteria().fuelType("diesel").build());
+        searches.put("c.fuel_type = 'diesel' AND c.year BETWEEN 2010 AND 2012", criteria().fuelType("diesel").minYear(2010).maxYear(2012).build());
+        searches.put("c.year BETWEEN 2010 AND 2011", criteria().minYear(2010).maxYear(2011).build());
+        searches.put("c.price BETWEEN 10000 AND 11000", criteria().minPrice(10000.0).maxPrice(11000.0).build());
+        searches.put("c.mileage <= 5000", criteria().maxMileage(5000).build());
+        return searches;
+    }
+
+    private static String orderBy(Sort sort) {
+        return sort.stream().map(order -> "c." + order.getProperty()).collect(Collectors.joining(", "));
+    }
+
+    private static void assertUsesSecondaryIndex(Connection connection, String sql) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+            assertTrue(plan.next(), sql);
+            String key = plan.getString("key");
+            String type = plan.getString("type");
+            assertNotNull(key, sql);
+            assertNotEquals("PRIMARY", key, sql);
+            assertTrue(type.equals("ref") || type.equals("range"), sql + " -> " + type + " on " + key);
+        }
+    }
+
+    private static void migrate(Connection connection) throws Exception {
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        new Liquibase("db/changelog.xml", new ClassLoaderResourceAccessor(), database).update("");
+    }
+
+    //valores repartidos de forma uniforme: 50 marcas, 35 años, 4 combustibles
+    private static void fill(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM car");
+            count.next();
+            for (int n = count.getInt(1) + 1; n <= ROWS; ) {
+                StringBuilder insert = new StringBuilder("INSERT INTO car (brand_id, model, mileage, price, year, colour, fuel_type, num_doors) VALUES ");
+                for (int i = 0; i < 1000 && n <= ROWS; i++, n++) {
+                    if (i > 0) insert.append(',');
+                    insert.append('(').append(1 + (n * 7919L) % 50).append(",'model").append(n % 500).append("',")
+                            .append((n * 104729L) % 300000).append(',').append(5000 + (n * 31L) % 95000).append(',')
+                            .append(1990 + (n * 13) % 35).append(",'").append(new String[]{"red", "blue", "black"}[n % 3])
+                            .append("','").append(new String[]{"petrol", "diesel", "electric", "hybrid"}[n % 4])
+                            .append("',").append(3 + 2 * (n % 2)).append(')');
+                }
+                statement.executeUpdate(insert.toString());
+            }
+            statement.execute("ANALYZE TABLE car");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.xmartin.carregistry.service.converters;
+
+import com.xmartin.carregistry.exceptions.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CarCursorConverterTest {
+
+    private final CarCursorConverter converter = new CarCursorConverter();
+
+    @Test
+    void idCursorRoundTrips() throws InvalidCursorException {
+        String cursor = converter.toCursor("id", ScrollPosition.forward(Map.of("id", 42)));
+
+        KeysetScrollPosition position = (KeysetScrollPosition) converter.toScrollPosition("id", cursor);
+
+        assertEquals(Map.of("id", 42), position.getKeys());
+    }
+
+    @Test
+    void modelCursorRoundTripsValuesContainingTheSeparator() throws InvalidCursorException {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("model", "Ibiza: FR 1.5");
+        keys.put("id", 7);
+        String cursor = converter.toCursor("model", ScrollPosition.forward(keys));
+
+        KeysetScrollPosition position = (KeysetScrollPosition) converter.toScrollPosition("model", cursor);
+
+        assertEquals(keys, position.getKeys());
+    }
+
+    @Test
+    void emptyCursorStartsFromTheBeginning() throws InvalidCursorException {
+        assertTrue(converter.toScrollPosition("id", null).isInitial());
+        assertTrue(converter.toScrollPosition("model", "").isInitial());
+    }
+
+    @Test
+    void cursorCreatedForAnotherSortIsRejected() {
+        String cursor = converter.toCursor("id", ScrollPosition.forward(Map.of("id", 42)));
+
+        assertThrows(InvalidCursorException.class, () -> converter.toScrollPosition("model", cursor));
+    }
+
+    @Test
+    void tamperedCursorsAreRejected() {
+        assertThrows(InvalidCursorException.class, () -> converter.toScrollPosition("id", "not base64!"));
+        assertThrows(InvalidCursorException.class, () -> converter.toScrollPosition("id", encode("id:abc")));
+        assertThrows(InvalidCursorException.class, () -> converter.toScrollPosition("id", encode("id")));
+        assertThrows(InvalidCursorException.class, () -> converter.toScrollPosition("model", encode("model:7")));
+    }
+
+    // Métodos auxiliares privados
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,137 @@
+package com.xmartin.carregistry.service.csv;
+
+import com.xmartin.carregistry.client.BrandCache;
+import com.xmartin.carregistry.domain.Brand;
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.entity.CarEntity;
+import com.xmartin.carregistry.exceptions.FailedToLoadCarsException;
+import com.xmartin.carregistry.repository.CarRepository;
+import com.xmartin.carregistry.service.stats.CarStatsCube;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarCsvImporterTest {
+
+    private static final String HEADER = "brand,model,description,colour,fuel_type,mileage,num_doors,price,year\n";
+    private static final Brand SEAT = Brand.builder().id(1).name("Seat").build();
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private final BrandCache brandCache = mock(BrandCache.class);
+    private final List<List<String>> savedChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(brandCache.getBrandByName(anyString())).thenReturn(Optional.empty());
+        when(brandCache.getBrandByName("seat")).thenReturn(Optional.of(SEAT));
+        //el importador vacia la lista del bloque despues de guardarla
+        when(carRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<CarEntity> chunk = invocation.getArgument(0);
+            savedChunks.add(chunk.stream().map(CarEntity::getModel).toList());
+            return chunk;
+        });
+    }
+
+    @Test
+    void invalidRowsAreRejectedWithoutAbortingTheImport() throws Exception {
+        String csv = HEADER
+                + "Seat,Ibiza,d,red,petrol,1000,5,10000,2020\n"
+                + "Unknown,X,d,red,petrol,1000,5,10000,2020\n"
+                + "Seat,Leon,d,red,petrol,many,5,10000,2020\n"
+                + "seat ,Arona,d,red,petrol,1000,5,10000,2021\n";
+
+        CarImportResult result = newImporter(10).importCars(new StringReader(csv));
+
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(List.of("Ibiza", "Arona")), savedChunks);
+        assertTrue(result.getErrors().get(0).startsWith("Record 2:"));
+        assertTrue(result.getErrors().get(1).startsWith("Record 3:"));
+        verify(brandCache).getBrandByName("seat");
+    }
+
+    @Test
+    void chunksAreCommittedEveryChunkSizeRecordsCountingRejectedOnes() throws Exception {
+        List<Long> committedOffsets = new ArrayList<>();
+        CarImportListener listener = new CarImportListener() {
+            @Override
+            public void onChunkCommitted(long recordsProcessed, CarImportResult progress) {
+                committedOffsets.add(recordsProcessed);
+            }
+        };
+
+        CarImportResult result = newImporter(2).importCars(new StringReader(csv(5, 3)),
+                CarImportResult.builder().build(), 0, listener);
+
+        assertEquals(List.of(List.of("m1", "m2"), List.of("m4"), List.of("m5")), savedChunks);
+        assertEquals(List.of(2L, 4L, 5L), committedOffsets);
+        assertEquals(4, result.getInserted());
+        assertEquals(1, result.getRejected());
+    }
+
+    @Test
+    void resumeSkipsAlreadyCommittedRecordsAndAccumulatesOnThePreviousResult() throws Exception {
+        CarImportResult previous = CarImportResult.builder().inserted(2).build();
+
+        CarImportResult result = newImporter(2).importCars(new StringReader(csv(5, 0)), previous, 2, CarImportListener.NONE);
+
+        assertEquals(List.of(List.of("m3", "m4"), List.of("m5")), savedChunks);
+        assertEquals(5, result.getInserted());
+    }
+
+    @Test
+    void cancelledImportStopsAfterTheCurrentChunk() throws Exception {
+        CarImportListener listener = new CarImportListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+
+        CarImportResult result = newImporter(2).importCars(new StringReader(csv(5, 0)),
+                CarImportResult.builder().build(), 0, listener);
+
+        assertEquals(List.of(List.of("m1", "m2")), savedChunks);
+        assertEquals(2, result.getInserted());
+    }
+
+    @Test
+    void missingColumnFailsBeforeSavingAnything() {
+        String csv = "brand,model\nSeat,Ibiza\n";
+
+        assertThrows(FailedToLoadCarsException.class, () -> newImporter(10).importCars(new StringReader(csv)));
+        verify(carRepository, never()).saveAll(anyList());
+    }
+
+    // Métodos auxiliares privados
+
+    private CarCsvImporter newImporter(int chunkSize) {
+        return new CarCsvImporter(carRepository, brandCache, mock(CarStatsCube.class),
+                mock(PlatformTransactionManager.class), chunkSize);
+    }
+
+    //filas m1..mN de Seat; la fila invalidRecord (si es > 0) tiene un kilometraje no numerico
+    private static String csv(int records, int invalidRecord) {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= records; i++) {
+            csv.append("Seat,m").append(i).append(",d,red,petrol,").append(i == invalidRecord ? "x" : "1000")
+                    .append(",5,10000,2020\n");
+        }
+        return csv.toString();
+    }
+}
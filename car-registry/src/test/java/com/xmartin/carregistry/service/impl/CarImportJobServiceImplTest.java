@@ -0,0 +1,178 @@
+package com.xmartin.carregistry.service.impl;
+
+import com.xmartin.carregistry.domain.CarImportResult;
+import com.xmartin.carregistry.domain.ImportJobStatus;
+import com.xmartin.carregistry.entity.CarImportJobEntity;
+import com.xmartin.carregistry.repository.CarImportJobRepository;
+import com.xmartin.carregistry.service.converters.CarImportJobConverter;
+import com.xmartin.carregistry.service.csv.CarCsvImporter;
+import com.xmartin.carregistry.service.csv.CarImportListener;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarImportJobServiceImplTest {
+
+    @TempDir
+    Path storageDir;
+
+    private final CarImportJobRepository jobRepository = mock(CarImportJobRepository.class);
+    private final CarCsvImporter carCsvImporter = mock(CarCsvImporter.class);
+    private final Map<String, CarImportJobEntity> jobs = new HashMap<>();
+    private final List<Runnable> queued = new ArrayList<>();
+    private CarImportJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(jobRepository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            CarImportJobEntity job = invocation.getArgument(0);
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.renewLease(anyString(), anyString(), any())).thenReturn(1);
+        service = new CarImportJobServiceImpl(jobRepository, new CarImportJobConverter(), carCsvImporter,
+                queued::add, mock(EntityManager.class), storageDir.toString(), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void jobCancelledWhileQueuedDeletesItsFile() throws Exception {
+        String id = service.createJob(new MockMultipartFile("file", "cars.csv", "text/csv", "brand\n".getBytes())).getId();
+        Path storedFile = storageDir.resolve(id + ".csv");
+        assertTrue(Files.exists(storedFile));
+
+        jobs.get(id).setStatus(ImportJobStatus.CANCELLED);
+        runQueued();
+
+        assertFalse(Files.exists(storedFile));
+        verify(carCsvImporter, never()).importCars(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void cancellingAQueuedJobDeletesItsFileWithoutWaitingForAWorker() throws Exception {
+        Path storedFile = pendingJob("job-1", ImportJobStatus.QUEUED);
+        when(jobRepository.updateStatus(eq("job-1"), eq(ImportJobStatus.QUEUED), eq(ImportJobStatus.CANCELLED), any())).thenReturn(1);
+
+        service.cancelJob("job-1");
+
+        assertFalse(Files.exists(storedFile));
+    }
+
+    @Test
+    void cancellingARunningJobLeavesItsFileToTheWorker() throws Exception {
+        Path storedFile = pendingJob("job-1", ImportJobStatus.RUNNING);
+
+        service.cancelJob("job-1");
+
+        assertTrue(Files.exists(storedFile));
+    }
+
+    @Test
+    void filesOfFinishedJobsAreSweptOnResume() throws Exception {
+        Path cancelledFile = pendingJob("job-1", ImportJobStatus.CANCELLED);
+        Path queuedFile = pendingJob("job-2", ImportJobStatus.QUEUED);
+        Path orphanFile = Files.writeString(storageDir.resolve("job-3.csv"), "brand\n");
+        when(jobRepository.findAllById(any())).thenReturn(List.copyOf(jobs.values()));
+
+        service.resumePendingJobs();
+
+        assertFalse(Files.exists(cancelledFile));
+        assertTrue(Files.exists(queuedFile));
+        assertTrue(Files.exists(orphanFile));
+    }
+
+    @Test
+    void jobClaimedByAnotherInstanceIsLeftAlone() throws Exception {
+        Path storedFile = pendingJob("job-1", ImportJobStatus.RUNNING);
+
+        service.resumePendingJobs();
+        runQueued();
+
+        assertTrue(Files.exists(storedFile));
+        verify(carCsvImporter, never()).importCars(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void claimedJobIsResumedFromItsOffsetAndItsFileDeletedWhenDone() throws Exception {
+        Path storedFile = pendingJob("job-1", ImportJobStatus.RUNNING);
+        jobs.get("job-1").setRowsProcessed(2000);
+        when(jobRepository.claim(eq("job-1"), anyCollection(), any(), anyString(), any(), any())).thenReturn(1);
+
+        service.resumePendingJobs();
+        runQueued();
+
+        verify(carCsvImporter).importCars(any(), any(), eq(2000L), any());
+        assertEquals(ImportJobStatus.COMPLETED, jobs.get("job-1").getStatus());
+        assertFalse(Files.exists(storedFile));
+    }
+
+    @Test
+    void failedJobDeletesItsFile() throws Exception {
+        Path storedFile = pendingJob("job-1", ImportJobStatus.QUEUED);
+        when(jobRepository.claim(eq("job-1"), anyCollection(), any(), anyString(), any(), any())).thenReturn(1);
+        when(carCsvImporter.importCars(any(), any(), anyLong(), any())).thenThrow(new IOException("broken"));
+
+        service.resumePendingJobs();
+        runQueued();
+
+        assertEquals(ImportJobStatus.FAILED, jobs.get("job-1").getStatus());
+        assertFalse(Files.exists(storedFile));
+    }
+
+    @Test
+    void jobTakenOverMidImportKeepsItsFileAndStatus() throws Exception {
+        Path storedFile = pendingJob("job-1", ImportJobStatus.RUNNING);
+        when(jobRepository.claim(eq("job-1"), anyCollection(), any(), anyString(), any(), any())).thenReturn(1);
+        when(jobRepository.renewLease(eq("job-1"), anyString(), any())).thenReturn(0);
+        when(carCsvImporter.importCars(any(), any(), anyLong(), any())).thenAnswer(invocation -> {
+            invocation.<CarImportListener>getArgument(3).onChunkCommitted(1000, invocation.getArgument(1));
+            return invocation.<CarImportResult>getArgument(1);
+        });
+
+        service.resumePendingJobs();
+        runQueued();
+
+        assertEquals(ImportJobStatus.RUNNING, jobs.get("job-1").getStatus());
+        assertTrue(Files.exists(storedFile));
+    }
+
+    // Métodos auxiliares privados
+
+    private Path pendingJob(String id, ImportJobStatus status) throws IOException {
+        Path storedFile = Files.writeString(storageDir.resolve(id + ".csv"), "brand\n");
+        jobs.put(id, CarImportJobEntity.builder().id(id).storedPath(storedFile.toString()).status(status).build());
+        when(jobRepository.findAllByStatusIn(anyCollection())).thenReturn(List.copyOf(jobs.values()));
+        return storedFile;
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,124 @@
+package com.xmartin.carregistry.service.impl;
+
+import com.xmartin.carregistry.client.BrandCache;
+import com.xmartin.carregistry.domain.Brand;
+import com.xmartin.carregistry.domain.Car;
+import com.xmartin.carregistry.domain.CarSummary;
+import com.xmartin.carregistry.domain.CarVersion;
+import com.xmartin.carregistry.domain.ResourceVersion;
+import com.xmartin.carregistry.repository.CarRepository;
+import com.xmartin.carregistry.service.converters.CarConverter;
+import com.xmartin.carregistry.service.converters.CarCursorConverter;
+import com.xmartin.carregistry.service.csv.CarCsvImporter;
+import com.xmartin.carregistry.service.stats.CarStatsCube;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarServiceImplTest {
+
+    private static final Instant CAR_MODIFIED = Instant.parse("2024-05-01T10:00:00Z");
+    private static final Instant BRAND_MODIFIED = Instant.parse("2024-06-01T10:00:00Z");
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private final BrandCache brandCache = mock(BrandCache.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CarStatsCube carStatsCube = mock(CarStatsCube.class);
+    private final CarServiceImpl carService = new CarServiceImpl(carRepository, brandCache, mock(CarConverter.class),
+            mock(EntityManager.class), mock(CarCsvImporter.class), new CarCursorConverter(),
+            transactionTemplate, carStatsCube);
+
+    @Test
+    void carVersionChangesWithTheCarAndWithItsBrand() {
+        ResourceVersion original = carVersion(1L, 1L);
+
+        assertEquals(original.getTag(), carVersion(1L, 1L).getTag());
+        assertNotEquals(original.getTag(), carVersion(2L, 1L).getTag());
+        assertNotEquals(original.getTag(), carVersion(1L, 2L).getTag());
+    }
+
+    @Test
+    void lastModifiedIsTheLatestOfCarAndBrand() {
+        assertEquals(BRAND_MODIFIED, carVersion(1L, 1L).getLastModified());
+    }
+
+    @Test
+    void missingCarHasNoVersion() {
+        when(carRepository.findVersionById(1)).thenReturn(Optional.empty());
+
+        assertTrue(carService.getCarVersion(1).isEmpty());
+    }
+
+    @Test
+    void summariesGetTheirBrandNamesFromOneBatchLookup() throws Exception {
+        when(carRepository.findAllSummaries(any())).thenReturn(List.of(
+                new CarSummary(1, 3, "Ibiza", 2020, 15000.0),
+                new CarSummary(2, 3, "Leon", 2021, 20000.0),
+                new CarSummary(3, 9, "Orphan", 2019, 9000.0)));
+        when(brandCache.getBrandsById(Set.of(3, 9))).thenReturn(Map.of(3, Brand.builder().id(3).name("Seat").build()));
+
+        List<CarSummary> summaries = carService.getCarSummaries(PageRequest.of(0, 10)).get();
+
+        assertEquals(Arrays.asList("Seat", "Seat", null), summaries.stream().map(CarSummary::getBrandName).toList());
+        verify(brandCache).getBrandsById(Set.of(3, 9));
+    }
+
+    @Test
+    void loadedPageHasTheSameVersionAsTheConditionalCheck() throws Exception {
+        Brand seat = Brand.builder().id(3).name("Seat").version(4L).lastModified(BRAND_MODIFIED).build();
+        when(carRepository.findAllVersions(any())).thenReturn(List.of(new CarVersion(1, 3, 2L, CAR_MODIFIED)));
+        when(carRepository.findAllSummaries(any())).thenReturn(List.of(new CarSummary(1, 3, "Ibiza", 2020, 15000.0, 2L, CAR_MODIFIED)));
+        when(brandCache.getBrandsById(any())).thenReturn(Map.of(3, seat));
+        Car car = Car.builder().id(1).brand(seat).version(2L).lastModified(CAR_MODIFIED).build();
+
+        ResourceVersion conditional = carService.getCarsVersion(PageRequest.of(0, 10));
+
+        assertEquals(conditional, carService.getCarsVersion(List.of(car)));
+        assertEquals(conditional, carService.getCarSummariesVersion(carService.getCarSummaries(PageRequest.of(0, 10)).get()));
+    }
+
+    @Test
+    void brandCarsAreDeletedInChunksUntilOneComesBackShort() {
+        ReflectionTestUtils.setField(carService, "deleteChunkSize", 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(carRepository.deleteChunkByBrandId(3, 2)).thenReturn(2, 2, 1);
+        when(carRepository.deleteChunkByBrandId(9, 2)).thenReturn(0);
+
+        assertEquals(5, carService.deleteAllCarsByBrandIds(List.of(3, 9, 3)));
+
+        verify(transactionTemplate, times(4)).execute(any());
+        verify(carRepository, times(3)).deleteChunkByBrandId(3, 2);
+        verify(carStatsCube).removeBrandAfterCommit(3);
+        verify(carStatsCube).removeBrandAfterCommit(9);
+    }
+
+    // Métodos auxiliares privados
+
+    private ResourceVersion carVersion(long carVersion, long brandVersion) {
+        when(carRepository.findVersionById(1)).thenReturn(Optional.of(new CarVersion(1, 3, carVersion, CAR_MODIFIED)));
+        when(brandCache.getBrandsById(any())).thenReturn(Map.of(3,
+                Brand.builder().id(3).version(brandVersion).lastModified(BRAND_MODIFIED).build()));
+        return carService.getCarVersion(1).orElseThrow();
+    }
+}
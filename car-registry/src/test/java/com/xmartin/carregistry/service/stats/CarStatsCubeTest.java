@@ -0,0 +1,133 @@
+package com.xmartin.carregistry.service.stats;
+
+import com.xmartin.carregistry.domain.CarStatsDimension;
+import com.xmartin.carregistry.domain.CarStatsRow;
+import com.xmartin.carregistry.repository.CarRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarStatsCubeTest {
+
+    private static final CarStatsCube.CarFacts IBIZA = new CarStatsCube.CarFacts(3, "diesel", 2020, 15000.0, 1000);
+    private static final CarStatsCube.CarFacts LEON = new CarStatsCube.CarFacts(3, "diesel", 2020, 20000.0, 3000);
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private final CarStatsCube cube = new CarStatsCube(carRepository, mock(PlatformTransactionManager.class));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void queriesGoToTheDatabaseUntilTheCubeIsBuilt() {
+        when(carRepository.aggregateStats()).thenReturn(List.of(row(1, 15000.0)));
+
+        //sin cubo el incremento se descarta: el commit ya esta en la bbdd y lo vera el GROUP BY
+        cube.recordAfterCommit(List.of(), List.of(LEON));
+        assertEquals(1, total().getCount());
+        assertEquals(1, total().getCount());
+        verify(carRepository, times(2)).aggregateStats();
+        verify(carRepository, never()).openSnapshot();
+
+        cube.buildOnStartup();
+        assertEquals(1, total().getCount());
+        verify(carRepository, times(3)).aggregateStats();
+    }
+
+    @Test
+    void committedChangesAreAppliedAsIncrements() {
+        when(carRepository.aggregateStats()).thenReturn(List.of(row(1, 15000.0)));
+        cube.rebuild();
+
+        cube.recordAfterCommit(List.of(), List.of(LEON));
+        assertEquals(2, total().getCount());
+        assertEquals(35000.0, total().getPriceSum());
+
+        cube.recordAfterCommit(List.of(IBIZA, LEON), List.of());
+        assertEquals(List.of(), cube.rollUp(Set.of()));
+    }
+
+    @Test
+    void changeCommittedDuringARebuildIsReplayedOnTheNewCube() {
+        when(carRepository.aggregateStats()).thenReturn(List.of(row(1, 15000.0)));
+        cube.rebuild();
+
+        //el GROUP BY no ve el Leon: se confirma despues de abrir el snapshot
+        when(carRepository.aggregateStats()).thenAnswer(invocation -> {
+            cube.recordAfterCommit(List.of(), List.of(LEON));
+            return List.of(row(1, 15000.0));
+        });
+        cube.rebuild();
+
+        assertEquals(2, total().getCount());
+        assertEquals(35000.0, total().getPriceSum());
+    }
+
+    @Test
+    void commitInProgressWhenARebuildStartsIsNotCountedTwice() throws Exception {
+        when(carRepository.aggregateStats()).thenReturn(List.of(row(1, 15000.0)));
+        cube.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cube.recordAfterCommit(List.of(), List.of(LEON));
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+
+        //el commit termina antes de que empiece el snapshot, asi que el GROUP BY ya incluye el Leon
+        when(carRepository.aggregateStats()).thenReturn(List.of(row(2, 35000.0)));
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(cube::rebuild);
+        Thread.sleep(200);
+        assertFalse(rebuild.isDone());
+        verify(carRepository, times(1)).openSnapshot();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, total().getCount());
+        assertEquals(35000.0, total().getPriceSum());
+    }
+
+    @Test
+    void rolledBackChangesAreNotApplied() {
+        when(carRepository.aggregateStats()).thenReturn(List.of(row(1, 15000.0)));
+        cube.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cube.recordAfterCommit(List.of(), List.of(LEON));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(1, total().getCount());
+    }
+
+    // Métodos auxiliares privados
+
+    private CarStatsRow total() {
+        List<CarStatsRow> rows = cube.rollUp(Set.<CarStatsDimension>of());
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private static CarStatsRow row(long count, double priceSum) {
+        return new CarStatsRow(3, "diesel", 2020, count, priceSum, count, 1000L * count, count);
+    }
+}
@@ -2,6 +2,12 @@ package com.xmartin.gatewayservice.config;
 
 import com.xmartin.gatewayservice.dto.RequestDto;
 import com.xmartin.gatewayservice.dto.TokenDto;
+import com.xmartin.gatewayservice.security.AuthDecision;
+import com.xmartin.gatewayservice.security.AuthDecisionCache;
+import com.xmartin.gatewayservice.security.JwtVerifier;
+import com.xmartin.gatewayservice.security.RouteValidator;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
@@ -9,18 +15,35 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+
 @Component
 public class AuthFilter extends AbstractGatewayFilterFactory<AuthFilter.Config> {
 
-    private WebClient.Builder webclient;
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+    private final WebClient authWebClient;
+    private final JwtVerifier jwtVerifier;
+    private final RouteValidator routeValidator;
+    private final AuthDecisionCache authDecisionCache;
+    private final boolean revocationCheck;
 
-    public AuthFilter(WebClient.Builder webclient) {
+    public AuthFilter(WebClient authWebClient,
+                      JwtVerifier jwtVerifier,
+                      RouteValidator routeValidator,
+                      AuthDecisionCache authDecisionCache,
+                      @Value("${gateway-auth.revocation-check:true}") boolean revocationCheck) {
         super(Config.class);
-        this.webclient = webclient;
+        this.authWebClient = authWebClient;
+        this.jwtVerifier = jwtVerifier;
+        this.routeValidator = routeValidator;
+        this.authDecisionCache = authDecisionCache;
+        this.revocationCheck = revocationCheck;
     }
 
     @Override
@@ -41,29 +64,64 @@ public class AuthFilter extends AbstractGatewayFilterFactory<AuthFilter.Config>
                 return onError(exchange, HttpStatus.UNAUTHORIZED);
 
 
-            return webclient.build()
-                    .post()
-                    .uri("http://auth-service/auth/validate?token=" + chunks[1])
-                    .bodyValue(RequestDto
-                            .builder()
-                            .uri(exchange.getRequest().getPath().toString())
-                            .method(exchange.getRequest().getMethod().toString())
-                            .build())
-                    .retrieve().bodyToMono(TokenDto.class)
-                    .map(tokenDto -> {
-                        tokenDto.getToken();
-                        return exchange;
-                    }).flatMap(chain::filter)
-                    .onErrorResume(throwable -> {
-                        if (throwable instanceof WebClientResponseException) {
-                            WebClientResponseException webClientException = (WebClientResponseException) throwable;
-                            return onError(exchange, HttpStatus.resolve(webClientException.getStatusCode().value()));
-                        }
-                        return onError(exchange, HttpStatus.UNAUTHORIZED);
-                    });
+            RequestDto requestDto = RequestDto
+                    .builder()
+                    .uri(exchange.getRequest().getPath().toString())
+                    .method(exchange.getRequest().getMethod().toString())
+                    .build();
+
+            boolean adminPath = routeValidator.isAdminPath(requestDto);
+            return authDecisionCache.get(chunks[1], adminPath, () -> authorize(chunks[1], requestDto, adminPath))
+                    .flatMap(decision -> decision.isAllowed() ? chain.filter(exchange) : onError(exchange, decision.status()));
         }));
     }
 
+    /*
+    La firma, la caducidad y las rutas de administrador se comprueban en local con las claves publicas de
+    auth-service. Si revocationCheck esta activo (por defecto) se pregunta ademas a auth-service, que comprueba que
+    el usuario siga existiendo. El resultado se guarda en AuthDecisionCache.
+     */
+    private Mono<AuthDecision> authorize(String token, RequestDto requestDto, boolean adminPath) {
+        return jwtVerifier.verify(token)
+                .flatMap(claims -> {
+                    Instant expiresAt = claims.getExpiration() == null ? null : claims.getExpiration().toInstant();
+                    if (adminPath && !ADMIN_ROLE.equals(claims.get("role", String.class))) {
+                        return Mono.just(new AuthDecision(HttpStatus.FORBIDDEN, expiresAt));
+                    }
+                    if (!revocationCheck) {
+                        return Mono.just(new AuthDecision(HttpStatus.OK, expiresAt));
+                    }
+                    return validateRemotely(token, requestDto).map(status -> new AuthDecision(status, expiresAt));
+                })
+                .onErrorResume(throwable -> {
+                    if (throwable instanceof JwtException || throwable instanceof IllegalArgumentException) {
+                        return Mono.just(AuthDecision.of(HttpStatus.FORBIDDEN));
+                    }
+                    //no se han podido obtener las claves de auth-service
+                    return Mono.just(AuthDecision.of(HttpStatus.SERVICE_UNAVAILABLE));
+                });
+    }
+
+    private Mono<HttpStatus> validateRemotely(String token, RequestDto requestDto) {
+        return authWebClient
+                .post()
+                .uri("http://auth-service/auth/validate?token=" + token)
+                .bodyValue(requestDto)
+                .retrieve().bodyToMono(TokenDto.class)
+                .map(tokenDto -> HttpStatus.OK)
+                .onErrorResume(throwable -> {
+                    if (throwable instanceof WebClientResponseException webClientException) {
+                        return Mono.justOrEmpty(HttpStatus.resolve(webClientException.getStatusCode().value()));
+                    }
+                    if (throwable instanceof WebClientRequestException) {
+                        //sin conexion, timeout o pool agotado: no es un token invalido y no se guarda en cache
+                        return Mono.just(HttpStatus.SERVICE_UNAVAILABLE);
+                    }
+                    return Mono.just(HttpStatus.UNAUTHORIZED);
+                })
+                .defaultIfEmpty(HttpStatus.UNAUTHORIZED);
+    }
+
     public Mono<Void> onError(ServerWebExchange exchange, HttpStatus status) {
         ServerHttpResponse response = exchange.getResponse();
         response.setStatusCode(status);
@@ -1,9 +1,16 @@
 package com.xmartin.gatewayservice.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
@@ -12,4 +19,42 @@ public class WebClientConfig {
     public WebClient.Builder builder() {
         return WebClient.builder();
     }
+
+    /*
+    Pool de conexiones hacia auth-service: acotado, con keep-alive y cerrando en segundo plano las conexiones
+    inactivas o demasiado antiguas. Publica sus metricas en reactor.netty.connection.provider.* (name=auth-service).
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider authConnectionProvider(
+            @Value("${auth-client.max-connections:100}") int maxConnections,
+            @Value("${auth-client.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${auth-client.pending-acquire-timeout-ms:1000}") long pendingAcquireTimeoutMs,
+            @Value("${auth-client.max-idle-time-ms:30000}") long maxIdleTimeMs,
+            @Value("${auth-client.max-life-time-ms:300000}") long maxLifeTimeMs) {
+        return ConnectionProvider.builder("auth-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .metrics(true)
+                .build();
+    }
+
+    //cliente unico y balanceado para las llamadas a auth-service, se construye una sola vez al arrancar
+    @Bean
+    public WebClient authWebClient(@LoadBalanced WebClient.Builder builder,
+                                   ConnectionProvider authConnectionProvider,
+                                   @Value("${auth-client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                                   @Value("${auth-client.response-timeout-ms:2000}") long responseTimeoutMs) {
+        HttpClient httpClient = HttpClient.create(authConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
 }
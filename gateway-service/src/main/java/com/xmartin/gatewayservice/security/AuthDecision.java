@@ -0,0 +1,17 @@
+package com.xmartin.gatewayservice.security;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+//resultado de validar un token para una clase de ruta; expiresAt es el exp del token, si se ha podido leer
+public record AuthDecision(HttpStatus status, Instant expiresAt) {
+
+    public static AuthDecision of(HttpStatus status) {
+        return new AuthDecision(status, null);
+    }
+
+    public boolean isAllowed() {
+        return status == HttpStatus.OK;
+    }
+}
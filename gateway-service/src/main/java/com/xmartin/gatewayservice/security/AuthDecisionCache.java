@@ -0,0 +1,107 @@
+package com.xmartin.gatewayservice.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+Cache de resultados de validacion de tokens. La clave es el hash SHA-256 del token (no se guarda el token) mas
+la clase de ruta: el resultado solo depende de la peticion a traves de si la ruta es de administrador, asi que
+todas las demas peticiones con el mismo token comparten entrada.
+Las validaciones concurrentes del mismo token esperan al mismo futuro en lugar de lanzar cada una la suya. Los
+tokens validos se guardan maxTtl, los rechazados negativeTtl, y en ningun caso mas alla del exp del token. Los
+fallos por no poder contactar con auth-service (503) no se guardan.
+ */
+@Component
+public class AuthDecisionCache {
+
+    private final AsyncCache<String, AuthDecision> decisions;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public AuthDecisionCache(MeterRegistry meterRegistry,
+                             @Value("${gateway-auth.cache.maximum-size:100000}") long maximumSize,
+                             @Value("${gateway-auth.cache.max-ttl-ms:60000}") long maxTtlMs,
+                             @Value("${gateway-auth.cache.negative-ttl-ms:5000}") long negativeTtlMs) {
+        this.decisions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new DecisionExpiry(Duration.ofMillis(maxTtlMs), Duration.ofMillis(negativeTtlMs)))
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, decisions, "authDecisions");
+        Gauge.builder("gateway.auth.validations.in-flight", inFlight, AtomicInteger::get)
+                .description("Token validations currently in progress")
+                .register(meterRegistry);
+    }
+
+    public Mono<AuthDecision> get(String token, boolean adminPath, Supplier<Mono<AuthDecision>> loader) {
+        String key = hash(token) + (adminPath ? ":admin" : ":user");
+        //suppressCancel: si un cliente cancela no se cancela la validacion que comparten los demas
+        return Mono.fromFuture(() -> decisions.get(key, (k, executor) -> load(loader)), true);
+    }
+
+    // Métodos auxiliares privados
+
+    private CompletableFuture<AuthDecision> load(Supplier<Mono<AuthDecision>> loader) {
+        inFlight.incrementAndGet();
+        return loader.get()
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .toFuture();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record DecisionExpiry(Duration maxTtl, Duration negativeTtl) implements Expiry<String, AuthDecision> {
+
+        @Override
+        public long expireAfterCreate(String key, AuthDecision decision, long currentTime) {
+            if (decision.status() == HttpStatus.SERVICE_UNAVAILABLE) {
+                return 0;
+            }
+            Duration ttl = decision.isAllowed() ? maxTtl : negativeTtl;
+            if (decision.expiresAt() != null) {
+                Duration untilExpiration = Duration.between(Instant.now(), decision.expiresAt());
+                ttl = untilExpiration.isNegative() ? Duration.ZERO : min(ttl, untilExpiration);
+            }
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AuthDecision decision, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, decision, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, AuthDecision decision, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static Duration min(Duration a, Duration b) {
+            return a.compareTo(b) <= 0 ? a : b;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.xmartin.gatewayservice.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+Claves publicas de auth-service (JWKS) indexadas por kid. Se descargan la primera vez que hacen falta, no al
+arrancar, y se vuelven a pedir cuando llega un token firmado con un kid desconocido (rotacion de claves). Las
+descargas concurrentes comparten la misma peticion y, una vez hay claves, no se repiten mas de una vez cada
+refreshMinInterval aunque lleguen tokens con kids inventados.
+ */
+@Component
+@Slf4j
+public class JwksKeyStore {
+
+    private final WebClient authWebClient;
+    private final String jwksUri;
+    private final long refreshMinIntervalMs;
+
+    private volatile Map<String, Key> keys = Map.of();
+    private Mono<Map<String, Key>> refreshing;
+    private long lastRefresh;
+
+    public JwksKeyStore(WebClient authWebClient,
+                        @Value("${gateway-auth.jwks-uri:http://auth-service/auth/jwks}") String jwksUri,
+                        @Value("${gateway-auth.jwks-refresh-min-interval-ms:30000}") long refreshMinIntervalMs) {
+        this.authWebClient = authWebClient;
+        this.jwksUri = jwksUri;
+        this.refreshMinIntervalMs = refreshMinIntervalMs;
+    }
+
+    public Optional<Key> getKey(String kid) {
+        return Optional.ofNullable(keys.get(kid));
+    }
+
+    public synchronized Mono<Map<String, Key>> refresh() {
+        if (refreshing != null) {
+            return refreshing;
+        }
+        if (!keys.isEmpty() && System.currentTimeMillis() - lastRefresh < refreshMinIntervalMs) {
+            return Mono.just(keys);
+        }
+
+        refreshing = authWebClient
+                .get()
+                .uri(jwksUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(JwksKeyStore::parse)
+                .doOnNext(loaded -> {
+                    log.info("Loaded {} signing keys from {}", loaded.size(), jwksUri);
+                    keys = loaded;
+                })
+                .doFinally(signal -> finishRefresh())
+                .cache();
+        return refreshing;
+    }
+
+    // Métodos auxiliares privados
+
+    private synchronized void finishRefresh() {
+        refreshing = null;
+        lastRefresh = System.currentTimeMillis();
+    }
+
+    private static Map<String, Key> parse(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        Map<String, Key> loaded = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk.getId() != null) {
+                loaded.put(jwk.getId(), jwk.toKey());
+            }
+        }
+        return Map.copyOf(loaded);
+    }
+}
@@ -0,0 +1,53 @@
+package com.xmartin.gatewayservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+
+/*
+Verifica en el gateway la firma y la caducidad de los tokens con las claves publicas de auth-service (ver
+JwksKeyStore). Si el token esta firmado con una clave que aun no se conoce se recargan las claves y se
+reintenta una vez.
+ */
+@Component
+public class JwtVerifier {
+
+    private final JwksKeyStore keyStore;
+    private final JwtParser parser;
+
+    public JwtVerifier(JwksKeyStore keyStore) {
+        this.keyStore = keyStore;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return keyStore.getKey(header.getKeyId())
+                                .orElseThrow(() -> new UnknownSigningKeyException(header.getKeyId()));
+                    }
+                })
+                .build();
+    }
+
+    public Mono<Claims> verify(String token) {
+        return Mono.fromCallable(() -> parse(token))
+                .onErrorResume(UnknownSigningKeyException.class, e -> keyStore.refresh()
+                        .then(Mono.fromCallable(() -> parse(token))));
+    }
+
+    private Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    public static class UnknownSigningKeyException extends JwtException {
+        public UnknownSigningKeyException(String kid) {
+            super("Unknown signing key: " + kid);
+        }
+    }
+}
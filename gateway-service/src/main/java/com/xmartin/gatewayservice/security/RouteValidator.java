@@ -0,0 +1,108 @@
+package com.xmartin.gatewayservice.security;
+
+import com.xmartin.gatewayservice.dto.RequestDto;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+Las reglas de admin-paths se compilan una sola vez al cargar la configuracion (setPaths): se agrupan por metodo
+HTTP y, dentro de cada metodo, las uris sin caracteres especiales de regex se guardan en un set y se comprueban
+con una busqueda exacta; el resto se precompilan como Pattern junto a su prefijo literal, y solo se evaluan si la
+uri empieza por ese prefijo. Una peticion solo recorre las reglas de su metodo.
+Copia del RouteValidator de auth-service (los dos leen admin-paths de config-data/application.yml); cualquier
+cambio hay que hacerlo en los dos, y RouteValidatorTest esta igual en ambos modulos.
+ */
+@Component
+@ConfigurationProperties(prefix = "admin-paths")
+@Getter
+public class RouteValidator {
+
+    private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    private List<RequestDto> paths = List.of();
+    private volatile Map<String, MethodRules> rulesByMethod = Map.of();
+
+    public void setPaths(List<RequestDto> paths) {
+        this.paths = paths;
+        this.rulesByMethod = compile(paths);
+    }
+
+    //sin reglas cualquier usuario podria usar las rutas de administrador, asi que el servicio no arranca
+    @PostConstruct
+    public void checkPaths() {
+        if (paths.isEmpty()) {
+            throw new IllegalStateException("admin-paths is empty, check that config-data/application.yml is loaded");
+        }
+    }
+
+    public boolean isAdminPath(RequestDto requestDto) {
+        if (requestDto.getMethod() == null || requestDto.getUri() == null) return false;
+        MethodRules rules = rulesByMethod.get(requestDto.getMethod());
+        return rules != null && rules.matches(requestDto.getUri());
+    }
+
+    // Métodos auxiliares privados
+
+    private static Map<String, MethodRules> compile(List<RequestDto> paths) {
+        Map<String, Set<String>> literals = new HashMap<>();
+        Map<String, List<PatternRule>> patterns = new HashMap<>();
+        for (RequestDto path : paths) {
+            if (REGEX_METACHARACTERS.matcher(path.getUri()).find()) {
+                patterns.computeIfAbsent(path.getMethod(), m -> new ArrayList<>())
+                        .add(new PatternRule(literalPrefix(path.getUri()), Pattern.compile(path.getUri())));
+            } else {
+                literals.computeIfAbsent(path.getMethod(), m -> new HashSet<>()).add(path.getUri());
+            }
+        }
+
+        Map<String, MethodRules> rules = new HashMap<>();
+        Set<String> methods = new HashSet<>(literals.keySet());
+        methods.addAll(patterns.keySet());
+        for (String method : methods) {
+            rules.put(method, new MethodRules(
+                    literals.getOrDefault(method, Set.of()),
+                    List.copyOf(patterns.getOrDefault(method, List.of()))));
+        }
+        return Collections.unmodifiableMap(rules);
+    }
+
+    //parte fija del principio de la regex; vacia si la regex tiene alternativas
+    private static String literalPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) return "";
+        Matcher matcher = REGEX_METACHARACTERS.matcher(regex);
+        if (!matcher.find()) return regex;
+        int end = matcher.start();
+        char next = regex.charAt(end);
+        if (end > 0 && (next == '?' || next == '*' || next == '{')) {
+            //el caracter anterior es opcional
+            end--;
+        }
+        return regex.substring(0, end);
+    }
+
+    private record MethodRules(Set<String> literals, List<PatternRule> patterns) {
+
+        boolean matches(String uri) {
+            if (literals.contains(uri)) return true;
+            for (PatternRule rule : patterns) {
+                if (uri.startsWith(rule.prefix()) && rule.pattern().matcher(uri).matches()) return true;
+            }
+            return false;
+        }
+    }
+
+    private record PatternRule(String prefix, Pattern pattern) {
+    }
+}
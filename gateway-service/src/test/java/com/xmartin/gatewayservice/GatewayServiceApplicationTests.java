@@ -2,8 +2,13 @@ package com.xmartin.gatewayservice;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
 
 @SpringBootTest
+@TestPropertySource(properties = {
+		"admin-paths.paths[0].uri=/concessionaire/cars",
+		"admin-paths.paths[0].method=POST"
+})
 class GatewayServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,129 @@
+package com.xmartin.gatewayservice.config;
+
+import com.xmartin.gatewayservice.dto.RequestDto;
+import com.xmartin.gatewayservice.security.AuthDecisionCache;
+import com.xmartin.gatewayservice.security.JwtVerifier;
+import com.xmartin.gatewayservice.security.RouteValidator;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthFilterTest {
+
+    private final JwtVerifier jwtVerifier = mock(JwtVerifier.class);
+    private final GatewayFilterChain chain = mock(GatewayFilterChain.class);
+    private final RouteValidator routeValidator = new RouteValidator();
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        routeValidator.setPaths(List.of(new RequestDto("/concessionaire/cars", "POST")));
+        when(chain.filter(any())).thenReturn(Mono.empty());
+        when(jwtVerifier.verify(anyString())).thenReturn(Mono.just(claims("ROLE_USER")));
+    }
+
+    @Test
+    void unreachableAuthServiceIsA503ThatIsNotCached() {
+        AuthFilter filter = filter(request -> {
+            remoteCalls.incrementAndGet();
+            return Mono.error(new WebClientRequestException(new ConnectException("Connection refused"),
+                    HttpMethod.POST, URI.create("http://auth-service/auth/validate"), HttpHeaders.EMPTY));
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, run(filter, HttpMethod.GET, "/cars/1"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, run(filter, HttpMethod.GET, "/cars/1"));
+
+        assertEquals(2, remoteCalls.get());
+        verify(chain, never()).filter(any());
+    }
+
+    @Test
+    void rejectionFromAuthServiceIsForwarded() {
+        AuthFilter filter = filter(request -> {
+            remoteCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED).build());
+        });
+
+        assertEquals(HttpStatus.UNAUTHORIZED, run(filter, HttpMethod.GET, "/cars/1"));
+        verify(chain, never()).filter(any());
+    }
+
+    @Test
+    void validTokenIsCheckedRemotelyOnceAndForwarded() {
+        AuthFilter filter = filter(request -> {
+            remoteCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .body("{\"token\":\"t\"}")
+                    .build());
+        });
+
+        run(filter, HttpMethod.GET, "/cars/1");
+        run(filter, HttpMethod.GET, "/cars/2");
+
+        assertEquals(1, remoteCalls.get());
+        verify(chain, times(2)).filter(any());
+    }
+
+    @Test
+    void adminPathIsRejectedLocallyForUsers() {
+        AuthFilter filter = filter(request -> {
+            remoteCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        });
+
+        assertEquals(HttpStatus.FORBIDDEN, run(filter, HttpMethod.POST, "/concessionaire/cars"));
+        assertEquals(0, remoteCalls.get());
+    }
+
+    // Métodos auxiliares privados
+
+    private AuthFilter filter(ExchangeFunction authService) {
+        return new AuthFilter(WebClient.builder().exchangeFunction(authService).build(), jwtVerifier, routeValidator,
+                new AuthDecisionCache(new SimpleMeterRegistry(), 1000, 60000, 5000), true);
+    }
+
+    private HttpStatus run(AuthFilter filter, HttpMethod method, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.method(method, path)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+        filter.apply(new AuthFilter.Config()).filter(exchange, chain).block();
+        return exchange.getResponse().getStatusCode() == null ? null : HttpStatus.valueOf(exchange.getResponse().getStatusCode().value());
+    }
+
+    private static Claims claims(String role) {
+        return Jwts.claims()
+                .subject("user@mail.com")
+                .add("role", role)
+                .expiration(Date.from(Instant.now().plusSeconds(600)))
+                .build();
+    }
+}
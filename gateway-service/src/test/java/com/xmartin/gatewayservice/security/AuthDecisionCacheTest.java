@@ -0,0 +1,96 @@
+package com.xmartin.gatewayservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class AuthDecisionCacheTest {
+
+    private final AuthDecisionCache cache = new AuthDecisionCache(new SimpleMeterRegistry(), 1000, 60000, 60000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void allowedDecisionIsCachedPerToken() {
+        assertEquals(HttpStatus.OK, get("token", false, HttpStatus.OK));
+        assertEquals(HttpStatus.OK, get("token", false, HttpStatus.OK));
+        get("other-token", false, HttpStatus.OK);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void forbiddenDecisionIsCached() {
+        assertEquals(HttpStatus.FORBIDDEN, get("token", true, HttpStatus.FORBIDDEN));
+        assertEquals(HttpStatus.FORBIDDEN, get("token", true, HttpStatus.OK));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void unavailableDecisionIsNotCached() {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, get("token", false, HttpStatus.SERVICE_UNAVAILABLE));
+        assertEquals(HttpStatus.OK, get("token", false, HttpStatus.OK));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void adminAndUserRoutesHaveSeparateEntries() {
+        assertEquals(HttpStatus.OK, get("token", false, HttpStatus.OK));
+        assertEquals(HttpStatus.FORBIDDEN, get("token", true, HttpStatus.FORBIDDEN));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void decisionIsNotKeptPastTheTokenExpiration() throws InterruptedException {
+        Instant expiresAt = Instant.now().plusMillis(100);
+        cache.get("token", false, loader(new AuthDecision(HttpStatus.OK, expiresAt))).block();
+        Thread.sleep(200);
+
+        cache.get("token", false, loader(new AuthDecision(HttpStatus.OK, expiresAt))).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void concurrentValidationsOfTheSameTokenShareOneLoad() {
+        Sinks.One<AuthDecision> remote = Sinks.one();
+        Supplier<Mono<AuthDecision>> loader = () -> {
+            loads.incrementAndGet();
+            return remote.asMono();
+        };
+
+        CompletableFuture<AuthDecision> first = cache.get("token", false, loader).toFuture();
+        CompletableFuture<AuthDecision> second = cache.get("token", false, loader).toFuture();
+        assertFalse(first.isDone());
+        remote.tryEmitValue(AuthDecision.of(HttpStatus.OK));
+
+        assertEquals(HttpStatus.OK, first.join().status());
+        assertEquals(HttpStatus.OK, second.join().status());
+        assertEquals(1, loads.get());
+    }
+
+    // Métodos auxiliares privados
+
+    private HttpStatus get(String token, boolean adminPath, HttpStatus status) {
+        return cache.get(token, adminPath, loader(AuthDecision.of(status))).block().status();
+    }
+
+    private Supplier<Mono<AuthDecision>> loader(AuthDecision decision) {
+        return () -> {
+            loads.incrementAndGet();
+            return Mono.just(decision);
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package com.xmartin.gatewayservice.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.RsaPublicJwk;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtVerifierTest {
+
+    private final KeyPair keyPair = Jwts.SIG.RS256.keyPair().build();
+    private final RsaPublicJwk publicJwk = Jwks.builder().key((RSAPublicKey) keyPair.getPublic()).idFromThumbprint().build();
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+    private final JwksKeyStore keyStore = new JwksKeyStore(jwksClient(), "http://auth-service/auth/jwks", 60000);
+    private final JwtVerifier verifier = new JwtVerifier(keyStore);
+
+    @Test
+    void keysAreLoadedWithTheFirstTokenAndThenReused() {
+        assertTrue(keyStore.getKey(publicJwk.getId()).isEmpty());
+
+        assertEquals("user@mail.com", verifier.verify(token(keyPair, publicJwk.getId(), 60)).block().getSubject());
+        assertEquals("user@mail.com", verifier.verify(token(keyPair, publicJwk.getId(), 60)).block().getSubject());
+
+        assertEquals(1, jwksRequests.get());
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        KeyPair otherKeyPair = Jwts.SIG.RS256.keyPair().build();
+
+        assertThrows(SignatureException.class, () -> verifier.verify(token(otherKeyPair, publicJwk.getId(), 60)).block());
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        assertThrows(ExpiredJwtException.class, () -> verifier.verify(token(keyPair, publicJwk.getId(), -60)).block());
+    }
+
+    @Test
+    void unknownKidIsRejectedAndDoesNotRefreshAgainWithinTheInterval() {
+        keyStore.refresh().block();
+
+        assertThrows(JwtVerifier.UnknownSigningKeyException.class, () -> verifier.verify(token(keyPair, "rotated", 60)).block());
+        assertThrows(JwtVerifier.UnknownSigningKeyException.class, () -> verifier.verify(token(keyPair, "rotated", 60)).block());
+
+        assertEquals(1, jwksRequests.get());
+    }
+
+    @Test
+    void concurrentRefreshesShareOneRequest() {
+        Mono<Map<String, Key>> first = keyStore.refresh();
+        Mono<Map<String, Key>> second = keyStore.refresh();
+
+        assertSame(first, second);
+        assertEquals(Map.of(publicJwk.getId(), keyPair.getPublic()), second.block());
+        first.block();
+        assertEquals(1, jwksRequests.get());
+    }
+
+    // Métodos auxiliares privados
+
+    private static String token(KeyPair keyPair, String kid, long expiresInSeconds) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .subject("user@mail.com")
+                .claim("role", "ROLE_USER")
+                .issuedAt(Date.from(now.minusSeconds(120)))
+                .expiration(Date.from(now.plusSeconds(expiresInSeconds)))
+                .signWith(keyPair.getPrivate(), Jwts.SIG.RS256)
+                .compact();
+    }
+
+    //respuesta de /auth/jwks sin pasar por la red
+    private WebClient jwksClient() {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    jwksRequests.incrementAndGet();
+                    try {
+                        String body = new ObjectMapper().writeValueAsString(Map.of("keys", List.of(publicJwk)));
+                        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(body)
+                                .build());
+                    } catch (Exception e) {
+                        return Mono.error(e);
+                    }
+                })
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.xmartin.gatewayservice.security;
+
+import com.xmartin.gatewayservice.dto.RequestDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteValidatorTest {
+
+    private static final List<String> METHODS = List.of("GET", "POST", "PUT", "DELETE", "PATCH");
+
+    private static final List<String> URIS = List.of(
+            "/users/cars/1", "/users/cars/123", "/users/cars/abc", "/users/cars/", "/users/cars",
+            "/users/someone@mail.com", "/users/", "/users",
+            "/concessionaire/cars/7", "/concessionaire/cars/7/extra", "/concessionaire/cars",
+            "/concessionaire/cars/batch", "/concessionaire/cars/uploadCsv", "/concessionaire/cars/uploadcsv",
+            "/concessionaire/brands/3", "/concessionaire/brands", "/concessionaire/brands/uploadCsv",
+            "/concessionaire/brands/", "/cars/1", "/brands", "/auth/login", "/users/carsX/1",
+            "/brandsXX", "", "/");
+
+    @Test
+    void configuredAdminPathsKeepTheSameDecisions() throws IOException {
+        RouteValidator routeValidator = configuredRouteValidator();
+
+        assertFalse(routeValidator.getPaths().isEmpty());
+        assertSameDecisions(routeValidator);
+    }
+
+    @Test
+    void literalAndRegexRulesForTheSameMethodKeepTheSameDecisions() {
+        List<RequestDto> paths = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            paths.add(new RequestDto("/concessionaire/brands", "POST"));
+            paths.add(new RequestDto("/concessionaire/cars/\\d+", i % 2 == 0 ? "PUT" : "DELETE"));
+            paths.add(new RequestDto("/users/" + i, "GET"));
+            paths.add(new RequestDto("/users/cars/[0-9]{" + (i % 3 + 1) + "}", "GET"));
+        }
+        //reglas cuyo prefijo literal no es obligatorio
+        paths.add(new RequestDto("/users/carsX?/1", "PUT"));
+        paths.add(new RequestDto("/brandsX*", "GET"));
+        paths.add(new RequestDto("/nothing|/auth/login", "POST"));
+        paths.add(new RequestDto("(?i)/USERS", "DELETE"));
+        RouteValidator routeValidator = new RouteValidator();
+        routeValidator.setPaths(paths);
+
+        assertSameDecisions(routeValidator);
+    }
+
+    //el gateway es quien responde 403 a estas rutas
+    @Test
+    void adminRoutesAreRecognised() throws IOException {
+        RouteValidator routeValidator = configuredRouteValidator();
+
+        assertTrue(routeValidator.isAdminPath(new RequestDto("/users/someone@mail.com", "DELETE")));
+        assertTrue(routeValidator.isAdminPath(new RequestDto("/users/revocations", "GET")));
+        assertTrue(routeValidator.isAdminPath(new RequestDto("/brands/outbox/dead/retry", "POST")));
+        assertFalse(routeValidator.isAdminPath(new RequestDto("/users/someone@mail.com", "GET")));
+        assertFalse(routeValidator.isAdminPath(new RequestDto("/brands/outbox/dead", null)));
+    }
+
+    @Test
+    void emptyAdminPathsStopTheStartup() {
+        assertThrows(IllegalStateException.class, () -> new RouteValidator().checkPaths());
+    }
+
+    // Métodos auxiliares privados
+
+    private static RouteValidator configuredRouteValidator() throws IOException {
+        RouteValidator routeValidator = new RouteValidator();
+        Binder binder = new Binder(ConfigurationPropertySources.from(
+                new YamlPropertySourceLoader().load("application", new ClassPathResource("admin-paths.yml"))));
+        binder.bind("admin-paths", Bindable.ofInstance(routeValidator));
+        return routeValidator;
+    }
+
+    private static void assertSameDecisions(RouteValidator routeValidator) {
+        for (String method : METHODS) {
+            for (String uri : URIS) {
+                RequestDto requestDto = new RequestDto(uri, method);
+                assertEquals(legacyIsAdminPath(routeValidator.getPaths(), requestDto), routeValidator.isAdminPath(requestDto),
+                        method + " " + uri);
+            }
+        }
+    }
+
+    //implementacion anterior de RouteValidator.isAdminPath
+    private static boolean legacyIsAdminPath(List<RequestDto> paths, RequestDto requestDto) {
+        return paths.stream()
+                .anyMatch(p ->
+                        Pattern.matches(p.getUri(), requestDto.getUri())
+                                && p.getMethod().equals(requestDto.getMethod()));
+    }
+}
@@ -0,0 +1,12 @@
+package com.xmartin.userservice.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+
+@FeignClient(name = "auth-service")
+public interface AuthClient {
+
+    @PostMapping("/auth/revocations/{email}")
+    public void revokeUser(@PathVariable String email);
+}
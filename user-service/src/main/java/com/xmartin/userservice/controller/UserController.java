@@ -3,20 +3,24 @@ package com.xmartin.userservice.controller;
 
 import com.xmartin.userservice.controller.dtos.UserRequest;
 import com.xmartin.userservice.controller.mappers.UserMapper;
+import com.xmartin.userservice.domain.UserImage;
+import com.xmartin.userservice.exceptions.ImageNotFoundException;
 import com.xmartin.userservice.exceptions.UserNotFoundException;
 import com.xmartin.userservice.service.impl.UserServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/users")
@@ -60,6 +64,19 @@ public class UserController {
 
     }
 
+    //lo consulta auth-service directamente; a traves del gateway es una ruta de administrador
+    @Operation(summary = "Get user revocations", description = "Users deleted since the given instant (ISO-8601), oldest first")
+    @GetMapping("/revocations")
+    public ResponseEntity<?> getRevocations(@RequestParam Instant since) {
+
+        try {
+            return ResponseEntity.ok(userService.getRevocations(since));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+
+    }
+
     @Operation(summary = "Get user by email", description = "Get user by email")
     @GetMapping("/{email}")
     public ResponseEntity<?> getUser(@PathVariable String email) {
@@ -108,14 +125,22 @@ public class UserController {
 
     @Operation(summary = "Download image from user by ID", description = "Download the image from a user with specified ID")
     @GetMapping("userImage/{id}/download")
-    public ResponseEntity<?> downloadImage(@PathVariable Integer id) {
+    public ResponseEntity<?> downloadImage(@PathVariable Integer id, WebRequest webRequest) {
         try {
-            byte[] image = userService.getUserImage(id);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_PNG);
-            return new ResponseEntity<>(image, headers, HttpStatus.OK);
+            UserImage image = userService.getUserImage(id);
+            //el hash del contenido sirve de ETag; las peticiones Range las resuelve Spring sobre el Resource
+            if (webRequest.checkNotModified("\"" + image.getContentHash() + "\"")) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(image.getContentHash()).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(image.getContentType()))
+                    .eTag(image.getContentHash())
+                    .cacheControl(CacheControl.noCache())
+                    .body(image.getContent());
         } catch (UserNotFoundException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (ImageNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -0,0 +1,20 @@
+package com.xmartin.userservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImage {
+
+    private String contentHash;
+    private String contentType;
+    private Long size;
+    //fichero del almacen, se lee en streaming al escribir la respuesta
+    private Resource content;
+}
@@ -0,0 +1,19 @@
+package com.xmartin.userservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//borrado de un usuario: auth-service rechaza los tokens de email emitidos hasta revokedAt
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRevocation {
+
+    private String email;
+    private Instant revokedAt;
+}
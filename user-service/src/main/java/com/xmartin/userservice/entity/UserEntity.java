@@ -22,7 +22,7 @@ public class UserEntity {
     private String email;
     private String password;
     private String role;
-    private byte[] image;
+    //la columna image se mantiene solo para migrar las imagenes antiguas (ver UserRepository.findLegacyImageById)
 
 
 }
@@ -0,0 +1,31 @@
+package com.xmartin.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_image")
+public class UserImageEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    //sha-256 del contenido, es tambien la ruta en el almacen de ficheros
+    @Column(name = "content_hash", nullable = false)
+    private String contentHash;
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+    @Column(nullable = false)
+    private Long size;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,27 @@
+package com.xmartin.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_revocation")
+public class UserRevocationEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String email;
+    //en segundos, la misma precision que el iat de los tokens
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+}
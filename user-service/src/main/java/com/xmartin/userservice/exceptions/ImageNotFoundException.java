@@ -0,0 +1,7 @@
+package com.xmartin.userservice.exceptions;
+
+public class ImageNotFoundException extends Exception {
+    public ImageNotFoundException(String message) {
+        super(message);
+    }
+}
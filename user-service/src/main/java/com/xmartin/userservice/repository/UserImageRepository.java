@@ -0,0 +1,8 @@
+package com.xmartin.userservice.repository;
+
+import com.xmartin.userservice.entity.UserImageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserImageRepository extends JpaRepository<UserImageEntity, Integer> {
+    boolean existsByContentHash(String contentHash);
+}
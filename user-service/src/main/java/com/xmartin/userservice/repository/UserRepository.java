@@ -3,10 +3,23 @@ package com.xmartin.userservice.repository;
 
 import com.xmartin.userservice.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<UserEntity, Integer> {
     Optional<UserEntity> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    //imagen guardada en la columna antigua (base64), solo para migrarla a user_image
+    @Query(value = "SELECT image FROM user WHERE id = :id", nativeQuery = true)
+    byte[] findLegacyImageById(@Param("id") Integer id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE user SET image = NULL WHERE id = :id AND image IS NOT NULL", nativeQuery = true)
+    int clearLegacyImage(@Param("id") Integer id);
 }
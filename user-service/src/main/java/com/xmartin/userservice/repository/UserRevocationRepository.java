@@ -0,0 +1,21 @@
+package com.xmartin.userservice.repository;
+
+import com.xmartin.userservice.entity.UserRevocationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface UserRevocationRepository extends JpaRepository<UserRevocationEntity, Long> {
+
+    List<UserRevocationEntity> findAllByRevokedAtGreaterThanEqualOrderByRevokedAtAsc(Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserRevocationEntity r where r.revokedAt < :before")
+    int deleteAllRevokedBefore(@Param("before") Instant before);
+}
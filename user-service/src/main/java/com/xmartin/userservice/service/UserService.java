@@ -2,10 +2,15 @@ package com.xmartin.userservice.service;
 
 
 import com.xmartin.userservice.domain.User;
+import com.xmartin.userservice.domain.UserImage;
+import com.xmartin.userservice.domain.UserRevocation;
+import com.xmartin.userservice.exceptions.ImageNotFoundException;
 import com.xmartin.userservice.exceptions.UserNotFoundException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
 
 public interface UserService {
 
@@ -15,11 +20,14 @@ public interface UserService {
 
     boolean userExists(String email);
 
+    //usuarios borrados desde since, en orden; lo consulta auth-service
+    public List<UserRevocation> getRevocations(Instant since);
+
     public User getUserByEmail(String email) throws UserNotFoundException;
 
     public void deleteUser(String email) throws UserNotFoundException;
 
     public void addUserImage(Integer id, MultipartFile file) throws IOException, UserNotFoundException;
 
-    public byte[] getUserImage(Integer id) throws UserNotFoundException;
+    public UserImage getUserImage(Integer id) throws UserNotFoundException, ImageNotFoundException, IOException;
 }
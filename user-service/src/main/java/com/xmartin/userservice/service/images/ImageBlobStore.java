@@ -0,0 +1,171 @@
+package com.xmartin.userservice.service.images;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+Almacen de imagenes en disco direccionado por contenido: cada fichero se guarda con el sha-256 de su contenido
+como nombre (root/ab/cd/abcd...), asi que dos imagenes iguales ocupan un solo fichero.
+El contenido se copia en streaming a un fichero temporal mientras se calcula el hash y despues se mueve a su
+ruta definitiva, por lo que nunca se lee un fichero a medio escribir ni se carga la imagen entera en memoria.
+Es un directorio local: con varias instancias detras de lb://user-service, storage-dir tiene que ser un volumen
+compartido (NFS o similar) montado en todas, o una imagen subida a una instancia no se encontraria en las demas.
+Los ficheros que ya no referencia nadie se borran al quitar la imagen (deleteIfOrphan) y, por si eso falla o el
+proceso muere a medias, en un barrido periodico (sweep) que tambien limpia los upload-*.tmp abandonados.
+ */
+@Component
+@Slf4j
+public class ImageBlobStore {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Duration orphanGrace;
+
+    public ImageBlobStore(@Value("${user-images.storage-dir:./data/user-images}") String storageDir,
+                          @Value("${user-images.orphan-grace:10m}") Duration orphanGrace) {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+        this.orphanGrace = orphanGrace;
+    }
+
+    public StoredBlob store(InputStream content) throws IOException {
+        Files.createDirectories(root);
+        Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream digestStream = new DigestInputStream(content, digest)) {
+                size = Files.copy(digestStream, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            Path target = pathOf(hash);
+            Files.createDirectories(target.getParent());
+            /*
+            Si ya estaba guardado, en POSIX el rename atomico reemplaza el fichero por uno identico recien escrito, lo
+            que ademas lo marca como reciente para que no se borre como huerfano. Los sistemas de ficheros que no
+            reemplazan el destino lanzan FileAlreadyExistsException y entonces se marca a mano.
+             */
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            }
+            return new StoredBlob(hash, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Optional<Resource> load(String hash) {
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    /*
+    El llamador ya ha comprobado que ninguna imagen apunta a hash. Los ficheros escritos hace menos de
+    orphanGrace se dejan, porque otra subida con el mismo contenido puede estar a punto de referenciarlos.
+     */
+    public void deleteIfOrphan(String hash) {
+        deleteIfOlderThanGrace(pathOf(hash));
+    }
+
+    /*
+    Borra los ficheros de mas de orphanGrace que no referencia ninguna imagen segun isReferenced, y los temporales
+    de subidas que no llegaron a terminar. Devuelve cuantos ha borrado.
+     */
+    public int sweep(Predicate<String> isReferenced) {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        List<Path> candidates;
+        try (Stream<Path> files = Files.walk(root)) {
+            candidates = files.filter(Files::isRegularFile).filter(this::isOlderThanGrace).toList();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not sweep image storage {}", root, e);
+            return 0;
+        }
+
+        int deleted = 0;
+        for (Path path : candidates) {
+            String name = path.getFileName().toString();
+            boolean abandonedUpload = path.getParent().equals(root) && name.startsWith("upload-") && name.endsWith(".tmp");
+            boolean orphanBlob = isBlob(path) && !isReferenced.test(name);
+            if ((abandonedUpload || orphanBlob) && deleteIfOlderThanGrace(path)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // Métodos auxiliares privados
+
+    //se vuelve a mirar la fecha justo antes de borrar, por si una subida acaba de reescribir el fichero
+    private boolean deleteIfOlderThanGrace(Path path) {
+        try {
+            if (Files.isRegularFile(path) && isOlderThanGrace(path)) {
+                Files.delete(path);
+                return true;
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            log.warn("Could not delete unreferenced image file {}", path, e);
+        }
+        return false;
+    }
+
+    private boolean isOlderThanGrace(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(Instant.now().minus(orphanGrace));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    //root/ab/cd/abcd...
+    private boolean isBlob(Path path) {
+        String name = path.getFileName().toString();
+        return BLOB_NAME.matcher(name).matches() && path.equals(pathOf(name));
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record StoredBlob(String hash, long size) {
+    }
+}
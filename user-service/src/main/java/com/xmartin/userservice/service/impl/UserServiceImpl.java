@@ -1,19 +1,44 @@
 package com.xmartin.userservice.service.impl;
 
 
+import com.xmartin.userservice.client.AuthClient;
 import com.xmartin.userservice.domain.User;
+import com.xmartin.userservice.domain.UserImage;
+import com.xmartin.userservice.domain.UserRevocation;
 import com.xmartin.userservice.entity.UserEntity;
+import com.xmartin.userservice.entity.UserImageEntity;
+import com.xmartin.userservice.entity.UserRevocationEntity;
+import com.xmartin.userservice.exceptions.ImageNotFoundException;
 import com.xmartin.userservice.exceptions.UserNotFoundException;
+import com.xmartin.userservice.repository.UserImageRepository;
 import com.xmartin.userservice.repository.UserRepository;
+import com.xmartin.userservice.repository.UserRevocationRepository;
 import com.xmartin.userservice.service.UserService;
 import com.xmartin.userservice.service.converters.UserConverter;
+import com.xmartin.userservice.service.images.ImageBlobStore;
+import com.xmartin.userservice.service.images.ImageBlobStore.StoredBlob;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +49,16 @@ public class UserServiceImpl implements UserService {
     //proporciona una instancia de user repository
     private final UserRepository userRepository;
     private final UserConverter userConverter;
+    private final AuthClient authClient;
+    private final UserImageRepository userImageRepository;
+    private final ImageBlobStore imageBlobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRevocationRepository userRevocationRepository;
+    private static final String IMAGE_SVG = "image/svg";
+
+    //tiene que ser mayor que la duracion de los tokens (jwt.expirationms en auth-service)
+    @Value("${user-revocations.retention:1d}")
+    private Duration revocationRetention;
 
 
     //guarda un nuevo usuario en la bbdd
@@ -48,24 +83,165 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(String email) throws UserNotFoundException {
         UserEntity userEntity = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
-        userRepository.delete(userEntity);
+        Optional<String> imageHash = userImageRepository.findById(userEntity.getId()).map(UserImageEntity::getContentHash);
+        //la fila de user_image se borra en cascada; la revocacion se confirma junto al borrado
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.delete(userEntity);
+            userRevocationRepository.save(UserRevocationEntity.builder()
+                    .email(email)
+                    .revokedAt(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+                    .build());
+        });
+        imageHash.ifPresent(this::deleteImageIfOrphan);
+        revokeUser(email);
     }
 
     @Override
-    public void addUserImage(Integer id, MultipartFile file) throws IOException, UserNotFoundException {
-        UserEntity userEntity = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found"));
+    public List<UserRevocation> getRevocations(Instant since) {
+        return userRevocationRepository.findAllByRevokedAtGreaterThanEqualOrderByRevokedAtAsc(since).stream()
+                .map(revocation -> new UserRevocation(revocation.getEmail(), revocation.getRevokedAt()))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${user-revocations.purge-interval-ms:3600000}")
+    public void purgeRevocations() {
+        int purged = userRevocationRepository.deleteAllRevokedBefore(Instant.now().minus(revocationRetention));
+        if (purged > 0) {
+            log.info("Purged {} expired user revocations", purged);
+        }
+    }
 
-        userEntity.setImage(Base64.getEncoder().encode(file.getBytes()));
-        userRepository.save(userEntity);
+    //red de seguridad para los ficheros que deleteImageIfOrphan no llego a borrar (fallos, reinicios, subidas a medias)
+    @Scheduled(fixedDelayString = "${user-images.sweep-interval-ms:3600000}")
+    public void sweepUnreferencedImages() {
+        int deleted = imageBlobStore.sweep(userImageRepository::existsByContentHash);
+        if (deleted > 0) {
+            log.info("Swept {} unreferenced image files", deleted);
+        }
+    }
 
+    /*
+    La imagen se copia en streaming al almacen de ficheros (sin cargarla en memoria) antes de abrir ninguna
+    transaccion; en la bbdd solo se guardan sus metadatos. Si el usuario ya tenia otra imagen, la anterior se
+    borra del almacen cuando ya no la usa nadie.
+     */
+    @Override
+    public void addUserImage(Integer id, MultipartFile file) throws IOException, UserNotFoundException {
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("User with ID " + id + " not found");
+        }
+
+        StoredBlob blob;
+        try (InputStream content = file.getInputStream()) {
+            blob = imageBlobStore.store(content);
+        }
+
+        UserImageEntity userImageEntity = UserImageEntity.builder()
+                .userId(id)
+                .contentHash(blob.hash())
+                .contentType(imageContentType(file.getContentType()))
+                .size(blob.size())
+                .createdAt(Instant.now())
+                .build();
+
+        Optional<String> previousHash;
+        try {
+            previousHash = transactionTemplate.execute(status -> {
+                Optional<String> previous = userImageRepository.findById(id).map(UserImageEntity::getContentHash);
+                userImageRepository.save(userImageEntity);
+                userRepository.clearLegacyImage(id);
+                return previous;
+            });
+        } catch (DataIntegrityViolationException e) {
+            //el usuario se ha borrado mientras se subia la imagen
+            deleteImageIfOrphan(blob.hash());
+            throw new UserNotFoundException("User with ID " + id + " not found");
+        }
+        previousHash.filter(hash -> !hash.equals(blob.hash())).ifPresent(this::deleteImageIfOrphan);
     }
 
+    /*
+    Devuelve el fichero del almacen sin leerlo: el contenido se copia a la respuesta en streaming. Las imagenes
+    que siguen en la columna antigua se migran al almacen la primera vez que se piden.
+     */
     @Override
-    public byte[] getUserImage(Integer id) throws UserNotFoundException {
-        UserEntity userEntity = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found"));
-        return Base64.getDecoder().decode(userEntity.getImage());
+    public UserImage getUserImage(Integer id) throws UserNotFoundException, ImageNotFoundException, IOException {
+        UserImageEntity userImageEntity = userImageRepository.findById(id).orElse(null);
+        if (userImageEntity == null) {
+            userImageEntity = migrateLegacyImage(id);
+        }
+
+        Resource content = imageBlobStore.load(userImageEntity.getContentHash())
+                .orElseThrow(() -> new ImageNotFoundException("Image for user with ID " + id + " not found"));
+
+        return UserImage.builder()
+                .contentHash(userImageEntity.getContentHash())
+                .contentType(userImageEntity.getContentType())
+                .size(userImageEntity.getSize())
+                .content(content)
+                .build();
+    }
+
+    // Métodos auxiliares privados
+
+    private UserImageEntity migrateLegacyImage(Integer id) throws UserNotFoundException, ImageNotFoundException, IOException {
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("User with ID " + id + " not found");
+        }
+        byte[] legacyImage = userRepository.findLegacyImageById(id);
+        if (legacyImage == null) {
+            throw new ImageNotFoundException("User with ID " + id + " has no image");
+        }
+
+        byte[] image = Base64.getDecoder().decode(legacyImage);
+        StoredBlob blob = imageBlobStore.store(new ByteArrayInputStream(image));
+        //el endpoint antiguo siempre devolvia PNG
+        String contentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(image));
+
+        UserImageEntity userImageEntity = UserImageEntity.builder()
+                .userId(id)
+                .contentHash(blob.hash())
+                .contentType(imageContentType(contentType == null ? MediaType.IMAGE_PNG_VALUE : contentType))
+                .size(blob.size())
+                .createdAt(Instant.now())
+                .build();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userImageRepository.save(userImageEntity);
+                userRepository.clearLegacyImage(id);
+            });
+        } catch (DataIntegrityViolationException e) {
+            //otra peticion la ha migrado a la vez
+            return userImageRepository.findById(id).orElseThrow(() -> e);
+        }
+        log.info("Migrated legacy image of user {}", id);
+        return userImageEntity;
+    }
+
+    private void deleteImageIfOrphan(String hash) {
+        if (!userImageRepository.existsByContentHash(hash)) {
+            imageBlobStore.deleteIfOrphan(hash);
+        }
+    }
+
+    //solo se sirven como imagen los tipos image/*, salvo svg que puede llevar scripts
+    private static String imageContentType(String contentType) {
+        if (contentType == null || !contentType.startsWith("image/") || contentType.startsWith(IMAGE_SVG)) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        return contentType;
+    }
+
+    /*
+    Avisa a la instancia de auth-service que atienda la llamada para que rechace ya los tokens del usuario. Las
+    demas lo ven al leer user_revocation (GET /users/revocations), asi que si no responde el borrado sigue adelante.
+     */
+    private void revokeUser(String email) {
+        try {
+            authClient.revokeUser(email);
+        } catch (FeignException e) {
+            log.warn("Could not notify auth-service about deleted user", e);
+        }
     }
 
 
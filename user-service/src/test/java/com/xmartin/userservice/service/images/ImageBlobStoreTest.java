@@ -0,0 +1,118 @@
+package com.xmartin.userservice.service.images;
+
+import com.xmartin.userservice.service.images.ImageBlobStore.StoredBlob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageBlobStoreTest {
+
+    private static final Duration GRACE = Duration.ofMinutes(10);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        ImageBlobStore store = store();
+
+        StoredBlob first = store.store(content("png"));
+        makeOld(path(first));
+        StoredBlob second = store.store(content("png"));
+
+        assertEquals(first, second);
+        assertEquals(3, second.size());
+        assertEquals(1, countFiles());
+        //la segunda subida lo marca como reciente para que no se borre como huerfano
+        assertFalse(isOld(path(second)));
+        assertTrue(store.load(first.hash()).isPresent());
+    }
+
+    @Test
+    void orphanIsKeptDuringTheGracePeriod() throws IOException {
+        ImageBlobStore store = store();
+        StoredBlob blob = store.store(content("png"));
+
+        store.deleteIfOrphan(blob.hash());
+        assertTrue(store.load(blob.hash()).isPresent());
+
+        makeOld(path(blob));
+        store.deleteIfOrphan(blob.hash());
+        assertTrue(store.load(blob.hash()).isEmpty());
+    }
+
+    @Test
+    void sweepDeletesOldUnreferencedFilesAndAbandonedUploads() throws IOException {
+        ImageBlobStore store = store();
+        StoredBlob referenced = store.store(content("referenced"));
+        StoredBlob orphan = store.store(content("orphan"));
+        StoredBlob recentOrphan = store.store(content("recent"));
+        Path abandonedUpload = Files.createTempFile(root, "upload-", ".tmp");
+        Path recentUpload = Files.createTempFile(root, "upload-", ".tmp");
+        Path unrelated = Files.writeString(root.resolve("README"), "keep");
+        makeOld(path(referenced));
+        makeOld(path(orphan));
+        makeOld(abandonedUpload);
+        makeOld(unrelated);
+
+        int deleted = store.sweep(Set.of(referenced.hash())::contains);
+
+        assertEquals(2, deleted);
+        assertTrue(store.load(referenced.hash()).isPresent());
+        assertTrue(store.load(orphan.hash()).isEmpty());
+        assertTrue(store.load(recentOrphan.hash()).isPresent());
+        assertFalse(Files.exists(abandonedUpload));
+        assertTrue(Files.exists(recentUpload));
+        assertTrue(Files.exists(unrelated));
+    }
+
+    @Test
+    void sweepOfAMissingDirectoryDoesNothing() {
+        ImageBlobStore store = new ImageBlobStore(root.resolve("missing").toString(), GRACE);
+
+        assertEquals(0, store.sweep(hash -> false));
+    }
+
+    // Métodos auxiliares privados
+
+    private ImageBlobStore store() {
+        return new ImageBlobStore(root.toString(), GRACE);
+    }
+
+    private Path path(StoredBlob blob) {
+        String hash = blob.hash();
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static ByteArrayInputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void makeOld(Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(GRACE).minusSeconds(60)));
+    }
+
+    private static boolean isOld(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).toInstant().isBefore(Instant.now().minus(GRACE));
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}